@@ -1,21 +1,88 @@
 package mini.spring.AOP;
 
+import mini.spring.AOP.DynamicProxyFactory.MethodInterceptor;
+import mini.spring.AOP.DynamicProxyFactory.MethodInvocation;
 import org.aspectj.weaver.tools.PointcutExpression;
+import org.aspectj.weaver.tools.ShadowMatch;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Advisor {
     private final Object aspectBean;
     private final Method adviceMethod;
     private final String adviceType;
     private final PointcutExpression pointcutExpression;
+    private final MethodInterceptor interceptor;
+    // AspectJ 的匹配不是线程安全的，计算时对表达式加锁，命中缓存后无锁读取
+    private final Map<Class<?>, Boolean> typeMatchCache = new ConcurrentHashMap<>();
+    private final Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>();
+    private final Map<Method, MethodInterceptor> runtimeInterceptors = new ConcurrentHashMap<>();
 
-     public Advisor(Object aspectBean, Method adviceMethod, String adviceType, PointcutExpression pointcutExpression) {
-         this.aspectBean = aspectBean;
-         this.adviceMethod = adviceMethod;
-         this.adviceType = adviceType;
-         this.pointcutExpression = pointcutExpression;
-     }
+    public Advisor(Object aspectBean, Method adviceMethod, String adviceType, PointcutExpression pointcutExpression) {
+        this.aspectBean = aspectBean;
+        this.adviceMethod = adviceMethod;
+        this.adviceType = adviceType;
+        this.pointcutExpression = pointcutExpression;
+        // 构建期只做切点匹配，没有切面实例，也就不绑定通知方法
+        this.interceptor = (aspectBean != null ? createInterceptor() : null);
+    }
+
+    // 通知方法在创建时绑定为固定签名的 MethodHandle，调用时不再经过反射和参数数组
+    private MethodInterceptor createInterceptor() {
+        MethodHandle handle;
+        try {
+            adviceMethod.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(adviceMethod).bindTo(aspectBean);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to bind advice method: " + adviceMethod, e);
+        }
+        return switch (adviceType) {
+            case "before" -> {
+                MethodHandle advice = handle.asType(MethodType.methodType(void.class));
+                yield invocation -> { advice.invokeExact(); return invocation.proceed(); };
+            }
+            case "after" -> {
+                MethodHandle advice = handle.asType(MethodType.methodType(void.class));
+                yield invocation -> { try { return invocation.proceed(); } finally { advice.invokeExact(); } };
+            }
+            case "around" -> {
+                MethodHandle advice = handle.asType(MethodType.methodType(Object.class, MethodInvocation.class));
+                yield invocation -> (Object) advice.invokeExact(invocation);
+            }
+            default -> MethodInvocation::proceed;
+        };
+    }
+
+    public boolean couldMatch(Class<?> targetType) {
+        Boolean matched = typeMatchCache.get(targetType);
+        if (matched == null) {
+            synchronized (pointcutExpression) {
+                matched = AspectJPointcutExpressionParser.couldMatchJoinPointsInType(pointcutExpression, targetType);
+            }
+            typeMatchCache.put(targetType, matched);
+        }
+        return matched;
+    }
+
+    public ShadowMatch getShadowMatch(Method method) {
+        ShadowMatch shadowMatch = shadowMatchCache.get(method);
+        if (shadowMatch == null) {
+            synchronized (pointcutExpression) {
+                shadowMatch = pointcutExpression.matchesMethodExecution(method);
+            }
+            shadowMatchCache.put(method, shadowMatch);
+        }
+        return shadowMatch;
+    }
+
+    public boolean matches(Method method) {
+        return AspectJPointcutExpressionParser.matches(getShadowMatch(method));
+    }
 
     public Object getAspectBean() {
         return aspectBean;
@@ -32,4 +99,22 @@ public class Advisor {
     public String getAdviceType() {
         return adviceType;
     }
+
+    public MethodInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    // 只有静态匹配不确定的方法才需要在调用时检查残余条件
+    public MethodInterceptor getInterceptor(Method method) {
+        ShadowMatch shadowMatch = getShadowMatch(method);
+        if (shadowMatch.alwaysMatches()) {
+            return interceptor;
+        }
+        return runtimeInterceptors.computeIfAbsent(method, key -> new RuntimeMatchInterceptor(interceptor, () -> shadowMatch));
+    }
+
+    // 启动快照已经记录该方法需要运行时判断，这里不做静态匹配，留到第一次调用时再算
+    public MethodInterceptor getRuntimeInterceptor(Method method) {
+        return runtimeInterceptors.computeIfAbsent(method, key -> new RuntimeMatchInterceptor(interceptor, () -> getShadowMatch(key)));
+    }
 }
@@ -0,0 +1,67 @@
+package mini.spring.AOP;
+
+import mini.spring.AOP.DynamicProxyFactory.MethodInterceptor;
+import mini.spring.AOP.DynamicProxyFactory.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 一个 Bean 只有一层代理，每个被增强的方法预先算好自己的拦截器链，
+ * 调用时由 {@link ChainedMethodInvocation} 按下标依次推进，最后落到目标方法。
+ */
+public final class AdvisorChainInterceptor implements MethodInterceptor {
+    private final Map<Method, MethodInterceptor[]> chains;
+
+    public AdvisorChainInterceptor(Map<Method, MethodInterceptor[]> chains) {
+        this.chains = chains;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodInterceptor[] chain = chains.get(invocation.getMethod());
+        if (chain == null) {
+            return invocation.proceed();
+        }
+        return new ChainedMethodInvocation(invocation, chain).proceed();
+    }
+
+    private static final class ChainedMethodInvocation implements MethodInvocation {
+        private final MethodInvocation target;
+        private final MethodInterceptor[] chain;
+        private int index;
+
+        private ChainedMethodInvocation(MethodInvocation target, MethodInterceptor[] chain) {
+            this.target = target;
+            this.chain = chain;
+        }
+
+        @Override
+        public Object getProxy() {
+            return target.getProxy();
+        }
+
+        @Override
+        public Object getTarget() {
+            return target.getTarget();
+        }
+
+        @Override
+        public Method getMethod() {
+            return target.getMethod();
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return target.getArguments();
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            if (index < chain.length) {
+                return chain[index++].invoke(this);
+            }
+            return target.proceed();
+        }
+    }
+}
@@ -6,8 +6,12 @@ import org.aspectj.weaver.tools.PointcutParser;
 import org.aspectj.weaver.tools.PointcutPrimitive;
 import org.aspectj.weaver.tools.ShadowMatch;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 public final class AspectJPointcutExpressionParser {
 
@@ -25,6 +29,8 @@ public final class AspectJPointcutExpressionParser {
     );
 
     private static final PointcutParameter[] NO_PARAMETERS = new PointcutParameter[0];
+    private static final Map<ClassLoader, SoftReference<PointcutParser>> PARSER_CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
 
     private AspectJPointcutExpressionParser() {
     }
@@ -40,15 +46,29 @@ public final class AspectJPointcutExpressionParser {
     public static PointcutExpression parse(String expression, Class<?> pointcutDeclarationScope, ClassLoader classLoader) {
         String normalizedExpression = normalize(expression);
         ClassLoader resolutionClassLoader = (classLoader != null ? classLoader : defaultClassLoader());
-        PointcutParser parser = PointcutParser.getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
-                SUPPORTED_PRIMITIVES,
-                resolutionClassLoader
-        );
+        PointcutParser parser = getParser(resolutionClassLoader);
 
-        if (pointcutDeclarationScope == null) {
-            return parser.parsePointcutExpression(normalizedExpression);
+        synchronized (parser) {
+            if (pointcutDeclarationScope == null) {
+                return parser.parsePointcutExpression(normalizedExpression);
+            }
+            return parser.parsePointcutExpression(normalizedExpression, pointcutDeclarationScope, NO_PARAMETERS);
+        }
+    }
+
+    private static PointcutParser getParser(ClassLoader classLoader) {
+        synchronized (PARSER_CACHE) {
+            SoftReference<PointcutParser> reference = PARSER_CACHE.get(classLoader);
+            PointcutParser parser = (reference != null ? reference.get() : null);
+            if (parser == null) {
+                parser = PointcutParser.getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
+                        SUPPORTED_PRIMITIVES,
+                        classLoader
+                );
+                PARSER_CACHE.put(classLoader, new SoftReference<>(parser));
+            }
+            return parser;
         }
-        return parser.parsePointcutExpression(normalizedExpression, pointcutDeclarationScope, NO_PARAMETERS);
     }
 
     public static boolean couldMatchJoinPointsInType(PointcutExpression pointcutExpression, Class<?> targetType) {
@@ -62,7 +82,10 @@ public final class AspectJPointcutExpressionParser {
         if (pointcutExpression == null || method == null) {
             return false;
         }
-        ShadowMatch shadowMatch = pointcutExpression.matchesMethodExecution(method);
+        return matches(pointcutExpression.matchesMethodExecution(method));
+    }
+
+    public static boolean matches(ShadowMatch shadowMatch) {
         return shadowMatch.alwaysMatches() || shadowMatch.maybeMatches();
     }
 
@@ -22,14 +22,13 @@ public class AspectProcessor implements BeanPostProcessor {
     public Object afterInitialization(Object bean, String beanName) {
         if (!bean.getClass().isAnnotationPresent(Aspect.class)) return bean;
 
-        List<Advisor> advisors = makeAdvisors(bean);
+        List<Advisor> advisors = makeAdvisors(bean, bean.getClass());
         autoProxyCreator.addAdvisors(advisors);
 
         return bean;
     }
 
-    private List<Advisor> makeAdvisors(Object bean) {
-        Class<?> aspectType = bean.getClass();
+    static List<Advisor> makeAdvisors(Object bean, Class<?> aspectType) {
         return Arrays.stream(aspectType.getDeclaredMethods())
                 .filter(method -> method.isAnnotationPresent(Before.class)
                         || method.isAnnotationPresent(After.class)
@@ -1,17 +1,30 @@
 package mini.spring.AOP;
 
+import mini.spring.AOP.DynamicProxyFactory.MethodInterceptor;
 import mini.spring.IoC.BeanPostProcessor;
 import mini.spring.IoC.Component;
-import org.aspectj.weaver.tools.PointcutExpression;
+import mini.spring.IoC.SnapshotAware;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Component
-public class AutoProxyCreator implements BeanPostProcessor {
-    private final List<Advisor> advisors = new ArrayList<>();
+public class AutoProxyCreator implements BeanPostProcessor, SnapshotAware {
+    private final List<Advisor> advisors = new CopyOnWriteArrayList<>();
+    // 循环依赖中已提前暴露代理的 Bean，初始化完成后不再重复包装
+    private final Map<String, Object> earlyProxyReferences = new ConcurrentHashMap<>();
+    // 每个目标类的匹配结果，格式为 类名|方法签名=advisor,advisor?|...，带 ? 的需要运行时检查残余条件
+    private final Map<String, String> matchTable = new ConcurrentHashMap<>();
+    private final Map<String, Advisor> advisorsByKey = new ConcurrentHashMap<>();
+    private volatile Map<String, String> restoredMatches = Map.of();
 
     @Override
     public Object beforeInitialization(Object bean, String beanName) {
@@ -20,40 +33,144 @@ public class AutoProxyCreator implements BeanPostProcessor {
 
     @Override
     public Object afterInitialization(Object bean, String beanName) {
-        Object originalBean = DynamicProxyFactory.getOriginalClass(bean);
-        for (Method declaredMethod : originalBean.getClass().getDeclaredMethods()) {
-            for (Advisor advisor : advisors) {
-                PointcutExpression pointcutExpression = advisor.getPointcutExpression();
-                boolean hit = !bean.getClass().isAnnotationPresent(Aspect.class) &&
-                        AspectJPointcutExpressionParser.matchesMethodExecution(pointcutExpression, declaredMethod);
-                Method adviceMethod = advisor.getAdviceMethod();
+        if (earlyProxyReferences.remove(beanName) == bean) {
+            return bean;
+        }
+        return wrapIfNecessary(bean);
+    }
+
+    public Object getEarlyReference(Object bean, String beanName) {
+        earlyProxyReferences.put(beanName, bean);
+        return wrapIfNecessary(bean);
+    }
+
+    private Object wrapIfNecessary(Object bean) {
+        Class<?> targetClass = DynamicProxyFactory.getOriginalClass(bean);
+        if (advisors.isEmpty() || targetClass.isAnnotationPresent(Aspect.class)) {
+            return bean;
+        }
+
+        Map<Method, MethodInterceptor[]> chains = restoreChains(targetClass);
+        if (chains == null) {
+            chains = buildChains(targetClass);
+        }
+        if (chains.isEmpty()) {
+            return bean;
+        }
+        return DynamicProxyFactory.createProxy(bean, chains.keySet(), new AdvisorChainInterceptor(chains));
+    }
 
-                if (!hit) {
-                    continue;
+    private Map<Method, MethodInterceptor[]> buildChains(Class<?> targetClass) {
+        List<Advisor> candidates = new ArrayList<>();
+        for (Advisor advisor : advisors) {
+            if (advisor.couldMatch(targetClass)) {
+                candidates.add(advisor);
+            }
+        }
+        Map<Method, List<Advisor>> matched = candidates.isEmpty() ? Map.of() : matchAdvisors(targetClass, candidates);
+
+        Map<Method, MethodInterceptor[]> chains = new HashMap<>();
+        StringBuilder entry = new StringBuilder(targetClass.getName());
+        matched.forEach((method, chain) -> {
+            chains.put(method, chain.stream().map(advisor -> advisor.getInterceptor(method)).toArray(MethodInterceptor[]::new));
+            entry.append('|').append(signature(method)).append('=');
+            for (int i = 0; i < chain.size(); i++) {
+                Advisor advisor = chain.get(i);
+                entry.append(i == 0 ? "" : ",").append(advisorKey(advisor));
+                if (!advisor.getShadowMatch(method).alwaysMatches()) {
+                    entry.append('?');
                 }
+            }
+        });
+        matchTable.put(targetClass.getName(), entry.toString());
+        return chains;
+    }
 
-                Object aspectBean = advisor.getAspectBean();
-                bean = DynamicProxyFactory.createProxy(bean, invocation -> {
-                    adviceMethod.setAccessible(true);
-                    try {
-                        return switch (advisor.getAdviceType()) {
-                            case "before" -> { adviceMethod.invoke(aspectBean); yield invocation.proceed(); }
-                            case "after"  -> { try { yield invocation.proceed(); } finally { adviceMethod.invoke(aspectBean); } }
-                            case "around" -> adviceMethod.invoke(aspectBean, invocation);
-                            default       -> invocation.proceed();
-                        };
-                    } catch (InvocationTargetException e) {
-                        throw e.getTargetException();
-                    }
-                });
+    // 按快照里的匹配表直接组装拦截链，快照与当前的 Advisor 对不上时返回 null 重新匹配
+    private Map<Method, MethodInterceptor[]> restoreChains(Class<?> targetClass) {
+        String entry = restoredMatches.get(targetClass.getName());
+        if (entry == null) {
+            return null;
+        }
+        String[] parts = entry.split("\\|");
+        Map<Method, MethodInterceptor[]> chains = new HashMap<>();
+        if (parts.length == 1) {
+            return chains;
+        }
+        Map<String, Method> methods = new HashMap<>();
+        for (Method declaredMethod : targetClass.getDeclaredMethods()) {
+            methods.put(signature(declaredMethod), declaredMethod);
+        }
+        for (int i = 1; i < parts.length; i++) {
+            int separator = parts[i].indexOf('=');
+            Method method = methods.get(parts[i].substring(0, separator));
+            if (method == null) {
+                return null;
+            }
+            String[] keys = parts[i].substring(separator + 1).split(",");
+            MethodInterceptor[] chain = new MethodInterceptor[keys.length];
+            for (int j = 0; j < keys.length; j++) {
+                boolean runtimeMatch = keys[j].endsWith("?");
+                Advisor advisor = advisorsByKey.get(runtimeMatch ? keys[j].substring(0, keys[j].length() - 1) : keys[j]);
+                if (advisor == null) {
+                    return null;
+                }
+                chain[j] = runtimeMatch ? advisor.getRuntimeInterceptor(method) : advisor.getInterceptor();
             }
+            chains.put(method, chain);
+        }
+        return chains;
+    }
+
+    @Override
+    public List<String> saveSnapshot() {
+        return new ArrayList<>(matchTable.values());
+    }
+
+    @Override
+    public void restoreSnapshot(List<String> entries) {
+        Map<String, String> restored = new HashMap<>();
+        for (String entry : entries) {
+            int separator = entry.indexOf('|');
+            restored.put(separator < 0 ? entry : entry.substring(0, separator), entry);
         }
+        this.restoredMatches = restored;
+    }
+
+    private static String advisorKey(Advisor advisor) {
+        return advisor.getAdviceMethod().getDeclaringClass().getName() + "#" + signature(advisor.getAdviceMethod());
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
 
-        return bean;
+    // 运行时和构建期预生成代理共用的匹配逻辑，返回每个需要拦截的方法及其 Advisor（按注册顺序）
+    static Map<Method, List<Advisor>> matchAdvisors(Class<?> targetClass, List<Advisor> advisors) {
+        Map<Method, List<Advisor>> matched = new LinkedHashMap<>();
+        for (Method declaredMethod : targetClass.getDeclaredMethods()) {
+            int modifiers = declaredMethod.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || declaredMethod.isSynthetic()) {
+                continue;
+            }
+            List<Advisor> chain = new ArrayList<>();
+            for (Advisor advisor : advisors) {
+                if (advisor.couldMatch(targetClass) && advisor.matches(declaredMethod)) {
+                    chain.add(advisor);
+                }
+            }
+            if (!chain.isEmpty()) {
+                matched.put(declaredMethod, chain);
+            }
+        }
+        return matched;
     }
 
     public void addAdvisors(List<Advisor> advisors) {
         this.advisors.addAll(advisors);
+        for (Advisor advisor : advisors) {
+            this.advisorsByKey.put(advisorKey(advisor), advisor);
+        }
     }
 
 }
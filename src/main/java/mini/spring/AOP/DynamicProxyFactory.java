@@ -1,29 +1,53 @@
 package mini.spring.AOP;
 
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.TypeCache;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Ownership;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
 import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
 import net.bytebuddy.implementation.FixedValue;
 import net.bytebuddy.implementation.MethodDelegation;
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
+import net.bytebuddy.implementation.bind.annotation.FieldValue;
 import net.bytebuddy.implementation.bind.annotation.Origin;
 import net.bytebuddy.implementation.bind.annotation.RuntimeType;
 import net.bytebuddy.implementation.bind.annotation.SuperCall;
 import net.bytebuddy.implementation.bind.annotation.This;
+import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.matcher.ElementMatchers;
-
-import java.lang.reflect.Field;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import sun.reflect.ReflectionFactory;
 
 public final class DynamicProxyFactory {
 
@@ -44,7 +68,22 @@ public final class DynamicProxyFactory {
         Object proceed() throws Throwable;
     }
 
+    public interface SubclassProxy {
+        void setProxyInterceptor(MethodInterceptor interceptor);
+
+        void setProxyTarget(Object target);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamicProxyFactory.class);
     private static final Object[] NO_ARGS = new Object[0];
+    private static final String INTERCEPTOR_FIELD = "$$proxyInterceptor";
+    private static final String TARGET_FIELD = "$$proxyTarget";
+    private static final String SUBCLASS_PROXY_INFIX = "$$MiniSpringProxy$";
+    private static final String TARGET_FINGERPRINT_FIELD = "$$targetFingerprint";
+    // 预生成的代理类与当前目标类不一致时，运行时生成的类换用这个后缀，避免和已加载的旧类重名
+    private static final String RUNTIME_PROXY_SUFFIX = "$Runtime";
+    // 代理类只依赖被拦截的方法集合，拦截器实例通过字段绑定；ClassLoader 弱引用，卸载时一并回收
+    private static final TypeCache<ProxyClassKey> SUBCLASS_PROXY_CACHE = new TypeCache.WithInlineExpunction<>(TypeCache.Sort.WEAK);
     private static final ConcurrentMap<Class<?>, Class<?>> JDK_ORIGINAL_CLASS_TOKEN_CACHE = new ConcurrentHashMap<>();
     private static final String JDK_ORIGINAL_CLASS_TOKEN_SUFFIX = "$JdkOriginalClass$";
     private static final String JDK_ORIGINAL_CLASS_TOKEN_METHOD = "originalClass";
@@ -78,12 +117,18 @@ public final class DynamicProxyFactory {
     }
 
     public static <T> T createProxy(T target, MethodInterceptor interceptor) {
+        return createProxy(target, null, interceptor);
+    }
+
+    // interceptedMethods 为 null 时拦截全部可覆盖的方法；子类代理只让给定的方法进入 interceptor，其余直接转发到目标，
+    // JDK 代理无法按方法选择，由 interceptor 自行放行不关心的方法
+    public static <T> T createProxy(T target, Collection<Method> interceptedMethods, MethodInterceptor interceptor) {
         Objects.requireNonNull(target, "target must not be null");
         Objects.requireNonNull(interceptor, "interceptor must not be null");
 
         Class<?> targetClass = target.getClass();
         if (isSubclassProxyable(targetClass)) {
-            return createSubclassProxy(target, interceptor);
+            return createSubclassProxy(target, interceptedMethods, interceptor);
         }
         if (hasAnyInterface(targetClass)) {
             return createJdkProxy(target, interceptor);
@@ -118,8 +163,12 @@ public final class DynamicProxyFactory {
         return (T) proxy;
     }
 
-    @SuppressWarnings("unchecked")
     public static <T> T createSubclassProxy(T target, MethodInterceptor interceptor) {
+        return createSubclassProxy(target, null, interceptor);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T createSubclassProxy(T target, Collection<Method> interceptedMethods, MethodInterceptor interceptor) {
         Objects.requireNonNull(target, "target must not be null");
         Objects.requireNonNull(interceptor, "interceptor must not be null");
 
@@ -128,25 +177,208 @@ public final class DynamicProxyFactory {
             throw new IllegalArgumentException("Class is not subclass-proxyable: " + targetClass.getName());
         }
 
-        Class<?> proxyClass = new ByteBuddy()
-                .subclass(targetClass)
-                .method(ElementMatchers.isVirtual()
-                        .and(ElementMatchers.not(ElementMatchers.isFinal()))
-                        .and(ElementMatchers.not(ElementMatchers.isDeclaredBy(Object.class))))
-                .intercept(MethodDelegation.to(new SubclassProxyInterceptor(interceptor)))
-                .make()
-                .load(targetClass.getClassLoader(), ClassLoadingStrategy.Default.INJECTION)
-                .getLoaded();
+        Class<?> proxyClass = getOrCreateSubclassProxyClass(targetClass, interceptedMethods);
+        FINAL_METHOD_CHECK.get(targetClass);
+        return (T) newSubclassProxyInstance(proxyClass, target, interceptor);
+    }
+
+    // 不持有目标对象的子类代理，proceed() 不可用，由 interceptor 自行决定把调用转发到哪里
+    @SuppressWarnings("unchecked")
+    public static <T> T createClassProxy(Class<T> type, MethodInterceptor interceptor) {
+        Objects.requireNonNull(type, "type must not be null");
+        Objects.requireNonNull(interceptor, "interceptor must not be null");
+        if (!isSubclassProxyable(type)) {
+            throw new IllegalArgumentException("Class is not subclass-proxyable: " + type.getName());
+        }
+        return (T) newSubclassProxyInstance(getOrCreateSubclassProxyClass(type, null), null, interceptor);
+    }
 
+    // 每次调用都从 targetSource 取目标对象的子类代理，目标方法走缓存的 MethodHandle，不经过反射
+    public static <T> T createTargetSourceProxy(Class<T> type, Supplier<?> targetSource) {
+        Objects.requireNonNull(targetSource, "targetSource must not be null");
+        return createClassProxy(type, invocation -> ((ReflectiveMethodInvocation) invocation).proceedOn(targetSource.get()));
+    }
+
+    private static Object newSubclassProxyInstance(Class<?> proxyClass, Object target, MethodInterceptor interceptor) {
         Object proxyInstance;
         try {
-            proxyInstance = proxyClass.getDeclaredConstructor().newInstance();
+            proxyInstance = PROXY_CONSTRUCTORS.get(proxyClass).newInstance();
         } catch (ReflectiveOperationException e) {
             throw new IllegalStateException("Failed to instantiate proxy class: " + proxyClass.getName(), e);
         }
+        SubclassProxy subclassProxy = (SubclassProxy) proxyInstance;
+        subclassProxy.setProxyTarget(target);
+        subclassProxy.setProxyInterceptor(interceptor);
+        return proxyInstance;
+    }
+
+    // 代理实例只是转发壳，跳过目标类及代理类的构造器，只执行 Object 的构造器：字段初始化和构造器副作用都不会发生。
+    // JVM 不提供 ReflectionFactory 时退回代理类自身的无参构造器，此时目标类构造器会执行，构造期间的虚方法走父类实现
+    private static final boolean SERIALIZATION_CONSTRUCTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.unsupported").isPresent();
+
+    private static final ClassValue<Constructor<?>> PROXY_CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> proxyClass) {
+            if (SERIALIZATION_CONSTRUCTOR_AVAILABLE) {
+                try {
+                    Constructor<?> constructor = ReflectionFactory.getReflectionFactory()
+                            .newConstructorForSerialization(proxyClass, Object.class.getDeclaredConstructor());
+                    constructor.setAccessible(true);
+                    return constructor;
+                } catch (NoSuchMethodException | RuntimeException e) {
+                    logger.warn("Cannot instantiate {} without running constructors, falling back to its no-arg constructor",
+                            proxyClass.getName(), e);
+                }
+            } else {
+                logger.warn("jdk.unsupported is not available, {} will be instantiated through its no-arg constructor", proxyClass.getName());
+            }
+            try {
+                Constructor<?> constructor = proxyClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Subclass proxy requires a no-arg constructor: " + proxyClass.getSuperclass().getName(), e);
+            }
+        }
+    };
 
-        copyInstanceFields(target, proxyInstance, targetClass);
-        return (T) proxyInstance;
+    // final 方法无法覆盖，调用会落在代理实例自身（没有依赖注入的状态）上，按目标类只提示一次
+    private static final ClassValue<Boolean> FINAL_METHOD_CHECK = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> targetClass) {
+            List<String> finalMethods = new ArrayList<>();
+            for (Class<?> current = targetClass; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    int modifiers = method.getModifiers();
+                    if (Modifier.isFinal(modifiers) && !Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers) && !method.isSynthetic()) {
+                        finalMethods.add(current.getSimpleName() + "." + method.getName());
+                    }
+                }
+            }
+            if (!finalMethods.isEmpty()) {
+                logger.warn("Final methods of {} cannot be forwarded by its subclass proxy and will run on the proxy instance: {}",
+                        targetClass.getName(), finalMethods);
+            }
+            return Boolean.TRUE;
+        }
+    };
+
+    // 代理类名由目标类和被拦截的方法集合决定，构建期预生成的同名类存在且目标类指纹一致时直接加载，否则运行时生成
+    private static Class<?> getOrCreateSubclassProxyClass(Class<?> targetClass, Collection<Method> interceptedMethods) {
+        ClassLoader loader = targetClass.getClassLoader();
+        ProxyClassKey key = new ProxyClassKey(targetClass, interceptedMethods);
+        return SUBCLASS_PROXY_CACHE.findOrInsert(loader, key, () -> {
+            String proxyClassName = key.proxyClassName();
+            Class<?> pregenerated = loadPregeneratedClass(proxyClassName, loader);
+            if (pregenerated != null) {
+                if (SubclassProxy.class.isAssignableFrom(pregenerated) && matchesTarget(pregenerated, targetClass)) {
+                    return pregenerated;
+                }
+                logger.info("Pregenerated proxy {} is out of date with {}, generating it at runtime", proxyClassName, targetClass.getName());
+                proxyClassName += RUNTIME_PROXY_SUFFIX;
+            }
+            return makeSubclassProxyClass(targetClass, key, proxyClassName)
+                    .load(loader, ClassLoadingStrategy.Default.INJECTION)
+                    .getLoaded();
+        }, SUBCLASS_PROXY_CACHE);
+    }
+
+    private static boolean matchesTarget(Class<?> proxyClass, Class<?> targetClass) {
+        try {
+            return proxyClass.getDeclaredField(TARGET_FINGERPRINT_FIELD).getLong(null) == TARGET_FINGERPRINTS.get(targetClass);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    // 目标类指纹：代理会覆盖的全部方法（名字、描述符、是否 final），类改动后方法集合变化时预生成的代理类即失效；
+    // 方法体的改动不影响转发，不计入
+    private static final ClassValue<Long> TARGET_FINGERPRINTS = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> targetClass) {
+            Set<String> signatures = new TreeSet<>();
+            for (Method method : targetClass.getMethods()) {
+                addSignature(signatures, method);
+            }
+            for (Class<?> current = targetClass; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Method method : current.getDeclaredMethods()) {
+                    addSignature(signatures, method);
+                }
+            }
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.join(",", signatures).getBytes(StandardCharsets.UTF_8));
+                long fingerprint = 0;
+                for (int i = 0; i < 8; i++) {
+                    fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+                }
+                return fingerprint;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void addSignature(Set<String> signatures, Method method) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || method.getDeclaringClass() == Object.class) {
+                return;
+            }
+            signatures.add(method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString()
+                    + (Modifier.isFinal(modifiers) ? "F" : ""));
+        }
+    };
+
+    // 构建期调用：把代理类（或 JDK 代理需要的原始类型标记接口）写入 outputDirectory，
+    // interceptedMethods 为 null 时生成拦截全部方法的代理，与运行时的生成逻辑和命名完全一致
+    public static void saveProxyClass(Class<?> targetClass, Collection<Method> interceptedMethods, File outputDirectory) throws IOException {
+        Objects.requireNonNull(targetClass, "targetClass must not be null");
+        Objects.requireNonNull(outputDirectory, "outputDirectory must not be null");
+
+        if (isSubclassProxyable(targetClass)) {
+            ProxyClassKey key = new ProxyClassKey(targetClass, interceptedMethods);
+            makeSubclassProxyClass(targetClass, key, key.proxyClassName()).saveIn(outputDirectory);
+        } else if (hasAnyInterface(targetClass) && targetClass.getClassLoader() != null) {
+            Class<?> originalClass = getOriginalClass(targetClass);
+            makeJdkOriginalClassTokenInterface(originalClass, getJdkOriginalClassTokenName(originalClass)).saveIn(outputDirectory);
+        } else {
+            throw new IllegalArgumentException("Cannot create proxy for class without interfaces: " + targetClass.getName());
+        }
+    }
+
+    private static Class<?> loadPregeneratedClass(String className, ClassLoader loader) {
+        try {
+            return Class.forName(className, false, loader);
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return null;
+        }
+    }
+
+    // 所有可覆盖的方法都被重写：被增强的方法进入拦截器，其余方法直接转发到目标对象，
+    // 代理实例自身的字段从不参与业务调用
+    private static DynamicType.Unloaded<?> makeSubclassProxyClass(Class<?> targetClass, ProxyClassKey key, String proxyClassName) {
+        ElementMatcher.Junction<MethodDescription> overridable = ElementMatchers.<MethodDescription>isVirtual()
+                .and(ElementMatchers.not(ElementMatchers.isFinal()))
+                .and(ElementMatchers.not(ElementMatchers.isDeclaredBy(Object.class)));
+        ElementMatcher.Junction<MethodDescription> intercepted = overridable;
+        if (key.methodSignatures != null) {
+            intercepted = overridable.and(method -> key.methodSignatures.contains(method.getName() + method.getDescriptor()));
+        }
+        return new ByteBuddy()
+                .subclass(targetClass)
+                .name(proxyClassName)
+                .defineField(TARGET_FINGERPRINT_FIELD, long.class, Visibility.PUBLIC, Ownership.STATIC, FieldManifestation.FINAL)
+                .value(TARGET_FINGERPRINTS.get(targetClass))
+                .defineField(INTERCEPTOR_FIELD, MethodInterceptor.class, Visibility.PRIVATE)
+                .defineField(TARGET_FIELD, Object.class, Visibility.PRIVATE)
+                .method(overridable)
+                .intercept(MethodDelegation.to(TargetForwardingDispatcher.class))
+                .method(intercepted)
+                .intercept(MethodDelegation.to(SubclassProxyDispatcher.class))
+                .implement(SubclassProxy.class)
+                .method(ElementMatchers.named("setProxyInterceptor"))
+                .intercept(FieldAccessor.ofField(INTERCEPTOR_FIELD))
+                .method(ElementMatchers.named("setProxyTarget"))
+                .intercept(FieldAccessor.ofField(TARGET_FIELD))
+                .make();
     }
 
     private static boolean isSubclassProxyable(Class<?> targetClass) {
@@ -184,7 +416,7 @@ public final class DynamicProxyFactory {
     }
 
     private static boolean isByteBuddySubclassProxy(Class<?> candidate) {
-        return candidate != null && candidate.getName().contains("$ByteBuddy$");
+        return candidate != null && SubclassProxy.class.isAssignableFrom(candidate) && candidate.getName().contains(SUBCLASS_PROXY_INFIX);
     }
 
     private static Class<?> resolveOriginalClassFromJdkProxy(Class<?> proxyClass) {
@@ -223,26 +455,32 @@ public final class DynamicProxyFactory {
 
     private static Class<?> getOrCreateJdkOriginalClassTokenInterface(Class<?> originalClass, ClassLoader loader) {
         return JDK_ORIGINAL_CLASS_TOKEN_CACHE.computeIfAbsent(originalClass, key -> {
-            String tokenName = DynamicProxyFactory.class.getName()
-                    + JDK_ORIGINAL_CLASS_TOKEN_SUFFIX
-                    + toSafeTypeSuffix(key.getName());
-
-            try {
-                return Class.forName(tokenName, false, loader);
-            } catch (ClassNotFoundException ignored) {
+            String tokenName = getJdkOriginalClassTokenName(key);
+            Class<?> pregenerated = loadPregeneratedClass(tokenName, loader);
+            if (pregenerated != null) {
+                return pregenerated;
             }
-
-            return new ByteBuddy()
-                    .makeInterface()
-                    .name(tokenName)
-                    .defineMethod(JDK_ORIGINAL_CLASS_TOKEN_METHOD, Class.class, Modifier.PUBLIC | Modifier.STATIC)
-                    .intercept(FixedValue.value(key))
-                    .make()
+            return makeJdkOriginalClassTokenInterface(key, tokenName)
                     .load(loader, ClassLoadingStrategy.Default.INJECTION)
                     .getLoaded();
         });
     }
 
+    private static String getJdkOriginalClassTokenName(Class<?> originalClass) {
+        return DynamicProxyFactory.class.getName()
+                + JDK_ORIGINAL_CLASS_TOKEN_SUFFIX
+                + toSafeTypeSuffix(originalClass.getName());
+    }
+
+    private static DynamicType.Unloaded<?> makeJdkOriginalClassTokenInterface(Class<?> originalClass, String tokenName) {
+        return new ByteBuddy()
+                .makeInterface()
+                .name(tokenName)
+                .defineMethod(JDK_ORIGINAL_CLASS_TOKEN_METHOD, Class.class, Modifier.PUBLIC | Modifier.STATIC)
+                .intercept(FixedValue.value(originalClass))
+                .make();
+    }
+
     private static String toSafeTypeSuffix(String name) {
         byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
         StringBuilder builder = new StringBuilder(bytes.length * 2);
@@ -267,44 +505,67 @@ public final class DynamicProxyFactory {
         }
     }
 
-    private static Object invokeReflectively(Object target, Method method, Object[] arguments) throws Throwable {
-        try {
-            method.setAccessible(true);
-            return method.invoke(target, arguments);
-        } catch (InvocationTargetException e) {
-            throw e.getTargetException();
+    // 接口方法到目标方法的解析结果按目标类缓存，目标方法绑定为 (Object, Object[])Object 的 MethodHandle
+    private static final ClassValue<ConcurrentMap<Method, TargetMethod>> TARGET_METHOD_CACHE = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<Method, TargetMethod> computeValue(Class<?> targetClass) {
+            return new ConcurrentHashMap<>();
         }
+    };
+
+    // 子类代理拦截到的方法本身就声明在目标类的继承链上，直接按虚方法分派到目标对象
+    private static TargetMethod resolveDeclaredTargetMethod(Method method) {
+        ConcurrentMap<Method, TargetMethod> cache = TARGET_METHOD_CACHE.get(method.getDeclaringClass());
+        TargetMethod targetMethod = cache.get(method);
+        if (targetMethod == null) {
+            targetMethod = cache.computeIfAbsent(method, TargetMethod::new);
+        }
+        return targetMethod;
     }
 
-    private static void copyInstanceFields(Object source, Object destination, Class<?> declaringType) {
-        Class<?> current = declaringType;
-        while (current != null && current != Object.class) {
-            for (Field field : current.getDeclaredFields()) {
-                if (Modifier.isStatic(field.getModifiers())) {
-                    continue;
-                }
-                try {
-                    field.setAccessible(true);
-                    Object value = field.get(source);
-                    field.set(destination, value);
-                } catch (IllegalAccessException e) {
-                    throw new IllegalStateException("Failed to copy field: " + field, e);
-                }
+    private static TargetMethod resolveTargetMethod(Class<?> targetClass, Method method) {
+        ConcurrentMap<Method, TargetMethod> cache = TARGET_METHOD_CACHE.get(targetClass);
+        TargetMethod targetMethod = cache.get(method);
+        if (targetMethod == null) {
+            Method resolved = (method.getDeclaringClass() == Object.class ? method : resolveMethod(targetClass, method));
+            targetMethod = cache.computeIfAbsent(method, key -> new TargetMethod(resolved));
+        }
+        return targetMethod;
+    }
+
+    private static final class TargetMethod {
+        private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+        private final Method method;
+        private final MethodHandle invoker;
+
+        private TargetMethod(Method method) {
+            this.method = method;
+            method.trySetAccessible();
+            try {
+                this.invoker = MethodHandles.lookup().unreflect(method)
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to bind target method: " + method, e);
             }
-            current = current.getSuperclass();
+        }
+
+        private Object invoke(Object target, Object[] arguments) throws Throwable {
+            return (Object) invoker.invokeExact(target, arguments);
         }
     }
 
     private static final class ReflectiveMethodInvocation implements MethodInvocation {
         private final Object proxy;
         private final Object target;
-        private final Method method;
+        private final TargetMethod targetMethod;
         private final Object[] arguments;
 
-        private ReflectiveMethodInvocation(Object proxy, Object target, Method method, Object[] arguments) {
+        private ReflectiveMethodInvocation(Object proxy, Object target, TargetMethod targetMethod, Object[] arguments) {
             this.proxy = proxy;
             this.target = target;
-            this.method = method;
+            this.targetMethod = targetMethod;
             this.arguments = arguments;
         }
 
@@ -320,7 +581,7 @@ public final class DynamicProxyFactory {
 
         @Override
         public Method getMethod() {
-            return method;
+            return targetMethod.method;
         }
 
         @Override
@@ -330,29 +591,111 @@ public final class DynamicProxyFactory {
 
         @Override
         public Object proceed() throws Throwable {
-            return invokeReflectively(target, method, arguments);
+            if (target == null) {
+                throw new IllegalStateException("Proxy has no target to proceed to: " + targetMethod.method);
+            }
+            return targetMethod.invoke(target, arguments);
+        }
+
+        private Object proceedOn(Object target) throws Throwable {
+            return targetMethod.invoke(target, arguments);
         }
     }
 
-    public static final class SubclassProxyInterceptor {
-        private final MethodInterceptor interceptor;
+    private static final class ProxyClassKey {
+        private final String targetClassName;
+        private final Set<String> methodSignatures;
+
+        private ProxyClassKey(Class<?> targetClass, Collection<Method> interceptedMethods) {
+            this.targetClassName = targetClass.getName();
+            if (interceptedMethods == null) {
+                this.methodSignatures = null;
+            } else {
+                Set<String> signatures = new TreeSet<>();
+                for (Method method : interceptedMethods) {
+                    signatures.add(method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString());
+                }
+                this.methodSignatures = signatures;
+            }
+        }
 
-        private SubclassProxyInterceptor(MethodInterceptor interceptor) {
-            this.interceptor = interceptor;
+        // 同一组方法在每次构建和运行时都得到同一个类名
+        private String proxyClassName() {
+            String shape = (methodSignatures != null ? String.join(",", methodSignatures) : "*");
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(shape.getBytes(StandardCharsets.UTF_8));
+                StringBuilder builder = new StringBuilder(targetClassName).append(SUBCLASS_PROXY_INFIX);
+                for (int i = 0; i < 8; i++) {
+                    builder.append(Character.forDigit((digest[i] >>> 4) & 0xF, 16));
+                    builder.append(Character.forDigit(digest[i] & 0xF, 16));
+                }
+                return builder.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
         }
 
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ProxyClassKey key
+                    && this.targetClassName.equals(key.targetClassName)
+                    && Objects.equals(this.methodSignatures, key.methodSignatures);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.targetClassName.hashCode() + Objects.hashCode(this.methodSignatures);
+        }
+    }
+
+    public static final class SubclassProxyDispatcher {
+        private SubclassProxyDispatcher() {
+        }
+
+        // 父类构造器里调用的虚方法发生在拦截器绑定之前，此时直接走父类实现；之后 proceed() 转发到目标对象
         @RuntimeType
-        public Object intercept(
+        public static Object intercept(
                 @This Object proxy,
+                @FieldValue(INTERCEPTOR_FIELD) MethodInterceptor interceptor,
+                @FieldValue(TARGET_FIELD) Object target,
                 @Origin Method method,
                 @AllArguments Object[] args,
-                @SuperCall Callable<?> superCall
+                @SuperCall(nullIfImpossible = true) Callable<?> superCall
         ) throws Throwable {
+            if (interceptor == null) {
+                return invokeSuper(method, superCall);
+            }
             Object[] arguments = (args != null ? args : NO_ARGS);
-            return interceptor.invoke(new SuperCallMethodInvocation(proxy, method, arguments, superCall));
+            return interceptor.invoke(new ReflectiveMethodInvocation(proxy, target, resolveDeclaredTargetMethod(method), arguments));
         }
     }
 
+    public static final class TargetForwardingDispatcher {
+        private TargetForwardingDispatcher() {
+        }
+
+        // 没有被增强的方法不经过拦截器，直接在目标对象上执行
+        @RuntimeType
+        public static Object forward(
+                @FieldValue(TARGET_FIELD) Object target,
+                @Origin Method method,
+                @AllArguments Object[] args,
+                @SuperCall(nullIfImpossible = true) Callable<?> superCall
+        ) throws Throwable {
+            if (target == null) {
+                return invokeSuper(method, superCall);
+            }
+            return resolveDeclaredTargetMethod(method).invoke(target, args != null ? args : NO_ARGS);
+        }
+    }
+
+    private static Object invokeSuper(Method method, Callable<?> superCall) throws Exception {
+        if (superCall == null) {
+            throw new IllegalStateException("Proxy is not bound to a target yet: " + method);
+        }
+        return superCall.call();
+    }
+
     private static final class JdkProxyInvocationHandler implements InvocationHandler {
         private final Object target;
         private final Class<?> targetClass;
@@ -367,54 +710,11 @@ public final class DynamicProxyFactory {
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
             Object[] arguments = (args != null ? args : NO_ARGS);
+            TargetMethod targetMethod = resolveTargetMethod(targetClass, method);
             if (method.getDeclaringClass() == Object.class) {
-                return invokeReflectively(target, method, arguments);
+                return targetMethod.invoke(target, arguments);
             }
-            Method targetMethod = resolveMethod(targetClass, method);
             return interceptor.invoke(new ReflectiveMethodInvocation(proxy, target, targetMethod, arguments));
         }
     }
-
-    private static final class SuperCallMethodInvocation implements MethodInvocation {
-        private final Object proxy;
-        private final Method method;
-        private final Object[] arguments;
-        private final Callable<?> superCall;
-
-        private SuperCallMethodInvocation(Object proxy, Method method, Object[] arguments, Callable<?> superCall) {
-            this.proxy = proxy;
-            this.method = method;
-            this.arguments = arguments;
-            this.superCall = superCall;
-        }
-
-        @Override
-        public Object getProxy() {
-            return proxy;
-        }
-
-        @Override
-        public Object getTarget() {
-            return proxy;
-        }
-
-        @Override
-        public Method getMethod() {
-            return method;
-        }
-
-        @Override
-        public Object[] getArguments() {
-            return arguments;
-        }
-
-        @Override
-        public Object proceed() throws Throwable {
-            try {
-                return superCall.call();
-            } catch (InvocationTargetException e) {
-                throw e.getTargetException();
-            }
-        }
-    }
 }
@@ -0,0 +1,96 @@
+package mini.spring.AOP;
+
+import mini.spring.IoC.BeanDefinition;
+import mini.spring.IoC.CandidateComponentsIndex;
+import mini.spring.IoC.ClassPathScanner;
+import mini.spring.IoC.Component;
+import mini.spring.IoC.Lazy;
+import mini.spring.IoC.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 构建期生成代理类：在 process-classes 阶段按切点匹配结果把子类代理（或 JDK 代理的原始类型标记接口）
+ * 写入 target/classes，运行时 {@link DynamicProxyFactory} 会优先加载这些类。
+ * 用法：{@code ProxyClassGenerator <输出目录> <包名>...}
+ */
+public class ProxyClassGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(ProxyClassGenerator.class);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("用法: ProxyClassGenerator <outputDirectory> <basePackage>...");
+        }
+        File outputDirectory = new File(args[0]);
+        ClassLoader classLoader = ProxyClassGenerator.class.getClassLoader();
+
+        Set<Class<?>> components = new LinkedHashSet<>();
+        for (int i = 1; i < args.length; i++) {
+            components.addAll(findComponents(args[i], classLoader));
+        }
+
+        List<Advisor> advisors = new ArrayList<>();
+        for (Class<?> type : components) {
+            if (type.isAnnotationPresent(Aspect.class)) {
+                advisors.addAll(AspectProcessor.makeAdvisors(null, type));
+            }
+        }
+
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        for (Class<?> type : components) {
+            beanDefinitions.add(new BeanDefinition(type));
+        }
+        Set<Class<?>> lazyInjectionTypes = new LinkedHashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            for (Field field : beanDefinition.getAutowiredFields()) {
+                if (field.isAnnotationPresent(Lazy.class)) {
+                    lazyInjectionTypes.add(field.getType());
+                }
+            }
+        }
+
+        int generated = 0;
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            Class<?> type = beanDefinition.getBeanType();
+            if (!advisors.isEmpty() && !type.isAnnotationPresent(Aspect.class)) {
+                Map<Method, List<Advisor>> matched = AutoProxyCreator.matchAdvisors(type, advisors);
+                if (!matched.isEmpty()) {
+                    DynamicProxyFactory.saveProxyClass(type, matched.keySet(), outputDirectory);
+                    generated++;
+                }
+            }
+            // request 作用域和 @Lazy 注入点使用的按需取目标的代理
+            if (Scope.REQUEST.equals(beanDefinition.getScope()) || beanDefinition.isLazy()
+                    || lazyInjectionTypes.stream().anyMatch(lazyType -> lazyType.isAssignableFrom(type))) {
+                DynamicProxyFactory.saveProxyClass(type, null, outputDirectory);
+                generated++;
+            }
+        }
+        logger.info("预生成代理类 {} 个 -> {}", generated, outputDirectory);
+    }
+
+    private static List<Class<?>> findComponents(String packageName, ClassLoader classLoader) throws Exception {
+        CandidateComponentsIndex index = CandidateComponentsIndex.load(classLoader);
+        List<String> classNames = index != null
+                ? index.getCandidateTypes(packageName, Component.class)
+                : new ClassPathScanner(Component.class).findCandidateClassNames(packageName, classLoader);
+
+        List<Class<?>> classes = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> type = Class.forName(className, false, classLoader);
+            if (type.isAnnotationPresent(Component.class)) {
+                classes.add(type);
+            }
+        }
+        return classes;
+    }
+}
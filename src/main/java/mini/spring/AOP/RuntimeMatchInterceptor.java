@@ -0,0 +1,70 @@
+package mini.spring.AOP;
+
+import mini.spring.AOP.DynamicProxyFactory.MethodInterceptor;
+import mini.spring.AOP.DynamicProxyFactory.MethodInvocation;
+import org.aspectj.weaver.tools.ShadowMatch;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 静态匹配结果为 maybeMatches 的切点（args / this / target / @args 等）在调用时再做一次运行时判断，
+ * 判断结果只取决于目标类型和实参类型，按类型元组缓存。
+ * 静态匹配结果在第一次调用时才向 shadowMatchSource 获取，从启动快照恢复的拦截链因此不必在启动时跑 AspectJ 匹配。
+ */
+final class RuntimeMatchInterceptor implements MethodInterceptor {
+    private final MethodInterceptor advice;
+    private final Supplier<ShadowMatch> shadowMatchSource;
+    private volatile ShadowMatch shadowMatch;
+    private final Map<ArgumentTypes, Boolean> matchCache = new ConcurrentHashMap<>();
+
+    RuntimeMatchInterceptor(MethodInterceptor advice, Supplier<ShadowMatch> shadowMatchSource) {
+        this.advice = advice;
+        this.shadowMatchSource = shadowMatchSource;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        ArgumentTypes key = new ArgumentTypes(invocation.getTarget(), arguments);
+        Boolean matched = matchCache.get(key);
+        if (matched == null) {
+            ShadowMatch shadowMatch = this.shadowMatch;
+            if (shadowMatch == null) {
+                shadowMatch = shadowMatchSource.get();
+                this.shadowMatch = shadowMatch;
+            }
+            synchronized (shadowMatch) {
+                matched = shadowMatch.matchesJoinPoint(invocation.getProxy(), invocation.getTarget(), arguments).matches();
+            }
+            matchCache.put(key, matched);
+        }
+        return matched ? advice.invoke(invocation) : invocation.proceed();
+    }
+
+    private static final class ArgumentTypes {
+        private final Class<?>[] types;
+        private final int hash;
+
+        private ArgumentTypes(Object target, Object[] arguments) {
+            this.types = new Class<?>[arguments.length + 1];
+            this.types[0] = (target != null ? target.getClass() : null);
+            for (int i = 0; i < arguments.length; i++) {
+                this.types[i + 1] = (arguments[i] != null ? arguments[i].getClass() : null);
+            }
+            this.hash = Arrays.hashCode(this.types);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArgumentTypes key && Arrays.equals(this.types, key.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,45 +1,166 @@
 package mini.spring.IoC;
 
+import mini.spring.AOP.Aspect;
 import mini.spring.AOP.AutoProxyCreator;
+import mini.spring.AOP.DynamicProxyFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.net.URL;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static mini.spring.IoC.ReflectionUtil.getFieldGenericType;
 
 public class ApplicationContext {
 
-    private Map<String, Object> beanMap = new HashMap<>();
-    private Map<String, Object> loadingBeanMap = new HashMap<>();
-    private Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>();
+    // 默认按顺序创建单例；设为 true 时沿依赖图并行创建，@PostConstruct 中手动 getBean 的 Bean 可能因加锁顺序不同而互相等待
+    public static final String PARALLEL_STARTUP_PROPERTY = "mini.spring.startup.parallel";
+    public static final String STARTUP_THREADS_PROPERTY = "mini.spring.startup.threads";
+    public static final String SNAPSHOT_PROPERTY = "mini.spring.snapshot";
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationContext.class);
+
+    private Map<String, Object> beanMap = new ConcurrentHashMap<>();
+    private Map<String, Object> loadingBeanMap = new ConcurrentHashMap<>();
+    private Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>();
 
     private Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+    private Map<Class<?>, List<String>> beanNamesByType = new HashMap<>();
+    private Map<Class<?>, Object> resolvedBeanCache = new ConcurrentHashMap<>();
     private List<BeanPostProcessor> processors = new ArrayList<>();
 
+    private Map<String, BeanPool> beanPools = new HashMap<>();
+    private Map<String, Object> scopedProxies = new ConcurrentHashMap<>();
+    private Map<String, Object> lazyProxies = new ConcurrentHashMap<>();
+    private ThreadLocal<Set<String>> prototypesInCreation = ThreadLocal.withInitial(HashSet::new);
+
+    // 创建锁按依赖图的强连通分量分段：循环依赖的 Bean 共用一把锁。
+    // 注入引起的嵌套加锁沿依赖边进行，各线程顺序一致；@PostConstruct 或其他线程里手动调用 getBean 则可能逆序加锁，
+    // 所以拿不到锁时先检查等待关系，会形成环时直接抛异常，不进入死锁
+    private BeanDependencyGraph dependencyGraph;
+    private CreationLock[] creationLocks;
+    private final Map<Thread, CreationLock> waitingFor = new ConcurrentHashMap<>();
+
     public ApplicationContext(String packageName) throws Exception {
         initApplicationContext(packageName);
     }
 
     private void initApplicationContext(String packageName) throws Exception {
-        this.scanPackage(packageName).stream()
-                .filter(this::canCreate)
-                .forEach(this::wrapper);
+        String snapshotFile = System.getProperty(SNAPSHOT_PROPERTY);
+        if (snapshotFile != null && !StartupSnapshot.isSupported(this.getClass().getClassLoader())) {
+            logger.warn("没有组件索引 {}，无法判断启动快照是否过期，不使用快照 {}",
+                    CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION, snapshotFile);
+            snapshotFile = null;
+        }
+        StartupSnapshot snapshot = snapshotFile == null ? null
+                : StartupSnapshot.load(Paths.get(snapshotFile), packageName, this.getClass().getClassLoader());
+        List<BeanDefinition> beanDefinitions;
+        if (snapshot != null) {
+            beanDefinitions = snapshot.getBeanDefinitions();
+            beanDefinitions.forEach(this::registerBeanDefinition);
+            initDependencyGraph(snapshot.getDependencyGraph());
+        } else {
+            beanDefinitions = this.scanPackage(packageName).stream()
+                    .filter(this::canCreate)
+                    .map(this::wrapper)
+                    .toList();
+            initDependencyGraph(new BeanDependencyGraph(this.beanDefinitionMap.values(), this::getBeanNamesForType));
+        }
         initBeanPostProcessors();
-        this.beanDefinitionMap.values().forEach(this::createBean);
+        if (snapshot != null) {
+            for (BeanPostProcessor processor : this.processors) {
+                if (processor instanceof SnapshotAware snapshotAware) {
+                    List<String> entries = snapshot.getSection(DynamicProxyFactory.getOriginalClass(processor).getName());
+                    if (entries != null) {
+                        snapshotAware.restoreSnapshot(entries);
+                    }
+                }
+            }
+        }
+        // 切面先于普通 Bean 创建，保证 Advisor 在代理判断前已经注册
+        this.beanDefinitionMap.values().stream()
+                .filter(BeanDefinition::isEagerSingleton)
+                .filter(beanDefinition -> beanDefinition.getBeanType().isAnnotationPresent(Aspect.class))
+                .forEach(this::createBean);
+        if (Boolean.parseBoolean(System.getProperty(PARALLEL_STARTUP_PROPERTY, "false"))) {
+            createBeansInParallel();
+        } else {
+            this.beanDefinitionMap.values().stream()
+                    .filter(BeanDefinition::isEagerSingleton)
+                    .forEach(this::createBean);
+        }
+        if (snapshotFile != null && snapshot == null) {
+            writeSnapshot(Paths.get(snapshotFile), packageName, beanDefinitions);
+        }
+    }
+
+    private void writeSnapshot(Path file, String packageName, List<BeanDefinition> beanDefinitions) throws IOException {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        for (BeanPostProcessor processor : this.processors) {
+            if (processor instanceof SnapshotAware snapshotAware) {
+                sections.put(DynamicProxyFactory.getOriginalClass(processor).getName(), snapshotAware.saveSnapshot());
+            }
+        }
+        StartupSnapshot.write(file, packageName, this.getClass().getClassLoader(), beanDefinitions, this.dependencyGraph, sections);
+    }
+
+    private void initDependencyGraph(BeanDependencyGraph dependencyGraph) {
+        this.dependencyGraph = dependencyGraph;
+        this.creationLocks = new CreationLock[this.dependencyGraph.getComponents().size()];
+        for (int i = 0; i < this.creationLocks.length; i++) {
+            this.creationLocks[i] = new CreationLock();
+        }
+    }
+
+    // 同一个强连通分量内的 Bean 在同一线程里按原有的三级缓存逻辑创建，
+    // 分量之间只等待自己的依赖，互不依赖的子图并行实例化
+    private void createBeansInParallel() {
+        BeanDependencyGraph graph = this.dependencyGraph;
+        List<List<BeanDefinition>> components = graph.getComponents();
+        int threads = Integer.getInteger(STARTUP_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[components.size()];
+            for (int i = 0; i < components.size(); i++) {
+                CompletableFuture<?>[] dependencies = graph.getDependencies(i).stream()
+                        .map(dependency -> futures[dependency])
+                        .toArray(CompletableFuture<?>[]::new);
+                List<BeanDefinition> members = components.get(i);
+                futures[i] = CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> members.stream()
+                                .filter(BeanDefinition::isEagerSingleton)
+                                .forEach(this::createBean), pool);
+            }
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
     }
 
     private void initBeanPostProcessors() {
         this.beanDefinitionMap.values().stream()
+                .filter(BeanDefinition::isSingleton)
                 .filter(beanDefinition -> BeanPostProcessor.class.isAssignableFrom(beanDefinition.getBeanType()))
                 .map(this::createBean)
                 .map((bean) -> (BeanPostProcessor) bean)
@@ -47,28 +168,16 @@ public class ApplicationContext {
     }
 
     private List<Class<?>> scanPackage(String packageName) throws Exception {
-        List<Class<?>> classes = new ArrayList<>();
-        String packagePath = packageName.replace('.', File.separatorChar);
-        URL resource = this.getClass().getClassLoader().getResource(packagePath);
-        Path path = Paths.get(resource.toURI());
-        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                Path absoulutePath = file.toAbsolutePath();
-                if (absoulutePath.toString().endsWith(".class")) {
-                    String pathStr = absoulutePath.toString().replace(File.separatorChar, '.');
-                    int packageIndex = pathStr.lastIndexOf(packageName);
-                    String className = pathStr.substring(packageIndex, pathStr.length() - ".class".length());
-                    try {
-                        classes.add(Class.forName(className));
-                    } catch (ClassNotFoundException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                return FileVisitResult.CONTINUE;
-            }
-        });
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        CandidateComponentsIndex index = CandidateComponentsIndex.load(classLoader);
+        List<String> classNames = index != null
+                ? index.getCandidateTypes(packageName, Component.class)
+                : new ClassPathScanner(Component.class).findCandidateClassNames(packageName, classLoader);
 
+        List<Class<?>> classes = new ArrayList<>();
+        for (String className : classNames) {
+            classes.add(Class.forName(className, false, classLoader));
+        }
         return classes;
     }
 
@@ -78,28 +187,95 @@ public class ApplicationContext {
 
     protected BeanDefinition wrapper(Class<?> type) {
         BeanDefinition beanDefinition = new BeanDefinition(type);
+        registerBeanDefinition(beanDefinition);
+        return beanDefinition;
+    }
+
+    private void registerBeanDefinition(BeanDefinition beanDefinition) {
         if (this.beanDefinitionMap.containsKey(beanDefinition.getName())) {
             throw new RuntimeException("重复的 Bean 名字");
         }
         this.beanDefinitionMap.put(beanDefinition.getName(), beanDefinition);
-        return beanDefinition;
+        for (Class<?> superType : ReflectionUtil.getAllSuperTypes(beanDefinition.getBeanType())) {
+            this.beanNamesByType.computeIfAbsent(superType, key -> new ArrayList<>()).add(beanDefinition.getName());
+        }
+        if (Scope.PROTOTYPE.equals(beanDefinition.getScope()) && beanDefinition.getPoolSize() > 0) {
+            this.beanPools.put(beanDefinition.getName(),
+                    new BeanPool(beanDefinition.getPoolSize(), beanDefinition.getPoolResetMethod()));
+        }
     }
 
     protected Object createBean(BeanDefinition beanDefinition) {
         String beanName = beanDefinition.getName();
-        if (this.beanMap.containsKey(beanName)) {
-            return this.beanMap.get(beanName);
+        Object bean = this.beanMap.get(beanName);
+        if (bean != null) {
+            return bean;
+        }
+
+        CreationLock lock = getCreationLock(beanName);
+        acquire(lock, beanName);
+        try {
+            bean = this.beanMap.get(beanName);
+            if (bean != null) {
+                return bean;
+            }
+
+            Object loadingBean = this.loadingBeanMap.get(beanName);
+            if (loadingBean != null) {
+                return loadingBean;
+            }
+
+            ObjectFactory<?> objectFactory = this.singletonFactories.remove(beanName);
+            if (objectFactory != null) {
+                bean = objectFactory.getObject();
+                this.loadingBeanMap.put(beanName, bean);
+                return bean;
+            }
+
+            return doCreateBean(beanDefinition);
+        } finally {
+            lock.release();
+        }
+    }
+
+    private CreationLock getCreationLock(String beanName) {
+        return this.creationLocks[this.dependencyGraph.getComponentIndex(beanName)];
+    }
+
+    // 先登记自己在等哪把锁再沿 持有者 -> 其等待的锁 -> 持有者 的链检查，两个线程互等时后登记的一方一定能看到环
+    private void acquire(CreationLock lock, String beanName) {
+        if (lock.lock.tryLock()) {
+            lock.owner = Thread.currentThread();
+            return;
         }
-        if (this.loadingBeanMap.containsKey(beanName)) {
-            return this.loadingBeanMap.get(beanName);
+        Thread current = Thread.currentThread();
+        Thread holder = lock.owner;
+        this.waitingFor.put(current, lock);
+        try {
+            CreationLock next = lock;
+            for (int i = 0; i <= this.creationLocks.length && next != null; i++) {
+                Thread owner = next.owner;
+                if (owner == null) {
+                    break;
+                }
+                if (owner == current) {
+                    throw new RuntimeException("创建 Bean " + beanName + " 需要等待线程 " + (holder != null ? holder.getName() : "?")
+                            + " 持有的创建锁，而它正在等待当前线程持有的锁，继续等待会死锁；"
+                            + "请把 @PostConstruct 或并发线程中的 getBean 改为依赖注入，或关闭 " + PARALLEL_STARTUP_PROPERTY);
+                }
+                next = this.waitingFor.get(owner);
+            }
+            lock.lock.lock();
+            lock.owner = current;
+        } finally {
+            this.waitingFor.remove(current);
         }
-        return doCreateBean(beanDefinition);
     }
 
     protected Object getEarlyBean(Object bean, BeanDefinition beanDefinition) {
         for (BeanPostProcessor processor : this.processors) {
-            if (processor instanceof  AutoProxyCreator) {
-                bean = processor.afterInitialization(bean, beanDefinition.getName());
+            if (processor instanceof AutoProxyCreator autoProxyCreator) {
+                bean = autoProxyCreator.getEarlyReference(bean, beanDefinition.getName());
             }
         }
 
@@ -107,25 +283,127 @@ public class ApplicationContext {
     }
 
     protected Object doCreateBean(BeanDefinition beanDefinition) {
-        Constructor<?> constructor = beanDefinition.getConstructor();
         String beanName = beanDefinition.getName();
         Object bean;
         try {
-            bean = constructor.newInstance();
+            bean = beanDefinition.getInstantiator().instantiate();
             Object finalBean = bean;
             this.singletonFactories.put(beanName, () -> getEarlyBean(finalBean, beanDefinition));
 
             autowireBean(bean, beanDefinition);
-            bean = initializeBean(bean, beanDefinition);
-            this.loadingBeanMap.remove(beanName);
+            Object exposedBean = initializeBean(bean, beanDefinition);
+            // 已被其他 Bean 提前引用过的，统一使用提前暴露的那个对象（可能是代理）
+            Object earlyBean = this.loadingBeanMap.remove(beanName);
+            bean = (earlyBean != null && exposedBean == finalBean) ? earlyBean : exposedBean;
             this.singletonFactories.remove(beanName);
             this.beanMap.put(beanName, bean);
+        } catch (Exception e) {
+            // 创建失败的 Bean 不能留下提前暴露的引用，之后重新创建
+            this.singletonFactories.remove(beanName);
+            this.loadingBeanMap.remove(beanName);
+            throw new RuntimeException(e);
+        }
+        return bean;
+    }
+
+    // prototype / request 作用域的 Bean 不进三级缓存，每次都完整走一遍实例化、注入和初始化
+    protected Object createScopedBean(BeanDefinition beanDefinition) {
+        String beanName = beanDefinition.getName();
+        Set<String> inCreation = this.prototypesInCreation.get();
+        if (!inCreation.add(beanName)) {
+            throw new RuntimeException("非单例 Bean 存在循环依赖: " + beanName);
+        }
+        try {
+            Object bean = beanDefinition.getInstantiator().instantiate();
+            autowireBean(bean, beanDefinition);
+            return initializeBean(bean, beanDefinition);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            inCreation.remove(beanName);
+        }
+    }
+
+    // borrowed 为 false 表示实例注入到单例等生命周期更长的 Bean 中，不会被归还，不从池中借，直接新建
+    private Object getPrototypeBean(BeanDefinition beanDefinition, boolean borrowed) {
+        BeanPool pool = this.beanPools.get(beanDefinition.getName());
+        if (pool == null || !borrowed) {
+            return createScopedBean(beanDefinition);
+        }
+        RequestScope scope = RequestScope.current();
+        Object bean = pool.acquire(() -> createScopedBean(beanDefinition), scope);
+        // 请求内取出的池化实例在请求结束时自动归还，且只归还仍属于该请求的实例
+        if (scope != null) {
+            scope.registerRelease(bean, () -> pool.release(bean, scope));
         }
         return bean;
     }
 
+    // 请求之外通过 getBean 取出的池化实例必须由调用方归还；请求内手动归还后，请求结束时不再自动归还
+    public void releaseBean(String name, Object bean) {
+        BeanPool pool = this.beanPools.get(name);
+        if (pool != null && bean != null) {
+            RequestScope scope = RequestScope.current();
+            if (scope != null) {
+                scope.cancelRelease(bean);
+            }
+            pool.release(bean);
+        }
+    }
+
+    // request 作用域的 Bean 注入时拿到的是代理，每次调用再从当前请求中取真实实例
+    private Object getScopedProxy(BeanDefinition beanDefinition) {
+        return this.scopedProxies.computeIfAbsent(beanDefinition.getName(),
+                beanName -> createTargetSourceProxy(beanDefinition, () -> this.getBean(beanName)));
+    }
+
+    // @Lazy 注入点拿到的代理在第一次调用时才创建真实 Bean，之后一直复用
+    private Object getLazyProxy(BeanDefinition beanDefinition) {
+        if (!beanDefinition.isSingleton()) {
+            return createTargetSourceProxy(beanDefinition, new LazyTargetSource(() -> getBean(beanDefinition.getName(), false)));
+        }
+        return this.lazyProxies.computeIfAbsent(beanDefinition.getName(),
+                beanName -> createTargetSourceProxy(beanDefinition, new LazyTargetSource(() -> this.getBean(beanName))));
+    }
+
+    private Object createTargetSourceProxy(BeanDefinition beanDefinition, ObjectFactory<?> targetSource) {
+        return DynamicProxyFactory.createTargetSourceProxy(beanDefinition.getBeanType(), targetSource::getObject);
+    }
+
+    // borrowed 表示依赖的持有者是 request 作用域的 Bean，池化的 prototype 依赖随请求结束归还
+    private Object resolveDependency(String beanName, boolean lazy, boolean borrowed) {
+        BeanDefinition beanDefinition = this.beanDefinitionMap.get(beanName);
+        if (beanDefinition == null) {
+            return null;
+        }
+        if (Scope.REQUEST.equals(beanDefinition.getScope())) {
+            return getScopedProxy(beanDefinition);
+        }
+        if (lazy) {
+            Object bean = this.beanMap.get(beanName);
+            return bean != null ? bean : getLazyProxy(beanDefinition);
+        }
+        return getBean(beanName, borrowed);
+    }
+
+    private Object resolveDependency(Class<?> beanType, boolean lazy, boolean borrowed) {
+        Object resolved = this.resolvedBeanCache.get(beanType);
+        if (resolved != null) {
+            return resolved;
+        }
+        List<String> beanNames = getBeanNamesForType(beanType);
+        if (beanNames.isEmpty()) {
+            return null;
+        }
+        String beanName = beanNames.get(0);
+        if (lazy || !this.beanDefinitionMap.get(beanName).isSingleton()) {
+            return resolveDependency(beanName, lazy, borrowed);
+        }
+        return getBean(beanType);
+    }
+
     private Object initializeBean(Object bean, BeanDefinition beanDefinition) throws Exception {
         for (BeanPostProcessor processor : this.processors) {
             bean = processor.beforeInitialization(bean, beanDefinition.getName());
@@ -143,27 +421,33 @@ public class ApplicationContext {
         return bean;
     }
 
-    private void autowireBean(Object bean, BeanDefinition beanDefinition) throws IllegalAccessException {
-        for (Field field : beanDefinition.getAutowiredFields()) {
-            field.setAccessible(true);
+    private void autowireBean(Object bean, BeanDefinition beanDefinition) throws Exception {
+        BeanInstantiator instantiator = beanDefinition.getInstantiator();
+        List<Field> autowiredFields = beanDefinition.getAutowiredFields();
+        boolean borrowed = Scope.REQUEST.equals(beanDefinition.getScope());
+        for (int i = 0; i < autowiredFields.size(); i++) {
+            Field field = autowiredFields.get(i);
+            boolean lazy = field.isAnnotationPresent(Lazy.class);
             if (List.class.isAssignableFrom(field.getType())) {
                 Class<?> genericType = getFieldGenericType(field);
-                List<Object> beans = (List<Object>) this.getBeans(genericType);
+                List<Object> beans = getBeanNamesForType(genericType).stream()
+                        .map(beanName -> resolveDependency(beanName, lazy, borrowed))
+                        .toList();
                 if (beans !=null) {
-                    field.set(bean, beans);
+                    instantiator.inject(bean, i, beans);
                 }
                 continue;
             }
 
-            Object val = this.getBean(field.getType());
+            Object val = this.resolveDependency(field.getType(), lazy, borrowed);
             if (val != null) {
-                field.set(bean, val);
+                instantiator.inject(bean, i, val);
             } else {
                 Autowired autowired = field.getAnnotation(Autowired.class);
                 if (autowired.required()) {
                     throw new RuntimeException("找不到对应的 Bean");
                 } else {
-                    field.set(bean, null);
+                    instantiator.inject(bean, i, null);
                 }
             }
 
@@ -171,6 +455,10 @@ public class ApplicationContext {
     }
 
     public Object getBean(String name) {
+        return getBean(name, true);
+    }
+
+    private Object getBean(String name, boolean borrowed) {
         if (name == null) {
             return null;
         }
@@ -179,41 +467,79 @@ public class ApplicationContext {
             return bean;
         }
 
-        Object loadingBean = loadingBeanMap.get(name);
-        if (loadingBean != null) {
-            return loadingBean;
-        }
-
-        ObjectFactory<?> objectFactory = singletonFactories.get(name);
-        if (objectFactory != null) {
-            bean = objectFactory.getObject();
-            this.loadingBeanMap.put(name, bean);
-            this.singletonFactories.remove(name);
-            return bean;
-        }
-
         BeanDefinition beanDefinition = beanDefinitionMap.get(name);
-        if (beanDefinition != null) {
-            return createBean(beanDefinition);
+        if (beanDefinition == null) {
+            return null;
         }
-        return null;
+        return switch (beanDefinition.getScope()) {
+            case Scope.PROTOTYPE -> getPrototypeBean(beanDefinition, borrowed);
+            case Scope.REQUEST -> RequestScope.getBean(name, () -> createScopedBean(beanDefinition));
+            default -> createBean(beanDefinition);
+        };
+    }
+
+    private List<String> getBeanNamesForType(Class<?> beanType) {
+        return this.beanNamesByType.getOrDefault(beanType, List.of());
     }
 
     public <T> T getBean(Class<T> beanType) {
-        String beanName = this.beanDefinitionMap.values().stream()
-                .filter(beanDefinition -> beanType.isAssignableFrom(beanDefinition.getBeanType()))
-                .map(BeanDefinition::getName)
-                .findFirst()
-                .orElse(null);
-        return (T) this.getBean(beanName);
+        Object resolved = this.resolvedBeanCache.get(beanType);
+        if (resolved != null) {
+            return (T) resolved;
+        }
+        List<String> beanNames = getBeanNamesForType(beanType);
+        if (beanNames.isEmpty()) {
+            return null;
+        }
+        String beanName = beanNames.get(0);
+        Object bean = this.getBean(beanName);
+        // 只缓存已经完全初始化的单例，早期引用仍然走三级缓存
+        if (bean != null && this.beanMap.get(beanName) == bean) {
+            this.resolvedBeanCache.put(beanType, bean);
+        }
+        return (T) bean;
     }
 
     public <T> List<T> getBeans(Class<T> beanType) {
-        return this.beanDefinitionMap.values().stream()
-                .filter(beanDefinition->beanType.isAssignableFrom(beanDefinition.getBeanType()))
-                .map(BeanDefinition::getName)
+        return getBeanNamesForType(beanType).stream()
                 .map(this::getBean)
-                .map(beanDefinition -> (T) beanDefinition)
+                .map(bean -> (T) bean)
                 .toList();
     }
+
+    private static final class CreationLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Thread owner;
+
+        private void release() {
+            if (this.lock.getHoldCount() == 1) {
+                this.owner = null;
+            }
+            this.lock.unlock();
+        }
+    }
+
+    private static final class LazyTargetSource implements ObjectFactory<Object> {
+        private final ObjectFactory<?> factory;
+        private volatile Object target;
+
+        private LazyTargetSource(ObjectFactory<?> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public Object getObject() {
+            Object target = this.target;
+            if (target == null) {
+                synchronized (this) {
+                    target = this.target;
+                    if (target == null) {
+                        target = this.factory.getObject();
+                        this.target = target;
+                    }
+                }
+            }
+            return target;
+        }
+    }
 }
@@ -12,11 +12,23 @@ public class BeanDefinition {
     private Method postConstructMethod;
     private List<Field> autowiredFields;
     private Class<?> beanType;
+    private String scope;
+    private int poolSize;
+    private boolean lazy;
+    private Method poolResetMethod;
+    private volatile BeanInstantiator instantiator;
 
     public BeanDefinition(Class<?> type) {
         Component component = type.getAnnotation(Component.class);
         this.name = component.name().isEmpty() ? type.getSimpleName() : component.name();
         this.beanType = type;
+        Scope scopeAnnotation = type.getAnnotation(Scope.class);
+        this.scope = scopeAnnotation == null ? Scope.SINGLETON : scopeAnnotation.value();
+        this.poolSize = scopeAnnotation == null ? 0 : scopeAnnotation.poolSize();
+        this.lazy = type.isAnnotationPresent(Lazy.class);
+        if (!Scope.SINGLETON.equals(this.scope) && !Scope.PROTOTYPE.equals(this.scope) && !Scope.REQUEST.equals(this.scope)) {
+            throw new RuntimeException("不支持的作用域 " + this.scope + ": " + type.getName());
+        }
         try {
             this.autowiredFields =
                     Arrays.stream(type.getDeclaredFields())
@@ -28,11 +40,30 @@ public class BeanDefinition {
                             .filter(method -> method.isAnnotationPresent(PostConstruct.class))
                             .findFirst()
                             .orElse(null);
+            this.poolResetMethod =
+                    Arrays.stream(type.getDeclaredMethods())
+                            .filter(method -> method.isAnnotationPresent(PoolReset.class))
+                            .findFirst()
+                            .orElse(null);
         } catch (NoSuchMethodException e) {
             throw new RuntimeException(e);
         }
     }
 
+    // 从启动快照恢复，跳过注解和成员扫描
+    BeanDefinition(Class<?> type, String name, String scope, int poolSize, boolean lazy,
+                   List<Field> autowiredFields, Method postConstructMethod, Method poolResetMethod) throws NoSuchMethodException {
+        this.name = name;
+        this.beanType = type;
+        this.scope = scope;
+        this.poolSize = poolSize;
+        this.lazy = lazy;
+        this.autowiredFields = autowiredFields;
+        this.constructor = type.getConstructor();
+        this.postConstructMethod = postConstructMethod;
+        this.poolResetMethod = poolResetMethod;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -52,4 +83,37 @@ public class BeanDefinition {
     public Class<?> getBeanType() {
         return beanType;
     }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public boolean isSingleton() {
+        return Scope.SINGLETON.equals(this.scope);
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public boolean isEagerSingleton() {
+        return isSingleton() && !this.lazy;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public Method getPoolResetMethod() {
+        return poolResetMethod;
+    }
+
+    public BeanInstantiator getInstantiator() {
+        BeanInstantiator instantiator = this.instantiator;
+        if (instantiator == null) {
+            instantiator = BeanInstantiator.create(this.beanType, this.constructor, this.autowiredFields);
+            this.instantiator = instantiator;
+        }
+        return instantiator;
+    }
 }
@@ -0,0 +1,122 @@
+package mini.spring.IoC;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static mini.spring.IoC.ReflectionUtil.getFieldGenericType;
+
+/**
+ * 根据 {@link BeanDefinition#getAutowiredFields()} 建立的依赖图。
+ * 循环依赖的 Bean 被收缩为同一个强连通分量，分量之间构成 DAG，
+ * 分量按拓扑序排列（被依赖的分量在前）。
+ */
+public class BeanDependencyGraph {
+
+    private final List<List<BeanDefinition>> components = new ArrayList<>();
+    private final List<Set<Integer>> componentDependencies = new ArrayList<>();
+
+    private final Map<String, BeanDefinition> definitions = new HashMap<>();
+    private final Map<String, List<String>> edges = new HashMap<>();
+    private final Map<String, Integer> componentIndex = new HashMap<>();
+
+    private final Map<String, Integer> visitIndex = new HashMap<>();
+    private final Map<String, Integer> lowLink = new HashMap<>();
+    private final List<String> stack = new ArrayList<>();
+    private final Set<String> onStack = new LinkedHashSet<>();
+    private int nextIndex;
+
+    public BeanDependencyGraph(Collection<BeanDefinition> beanDefinitions, Function<Class<?>, List<String>> candidateNames) {
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            this.definitions.put(beanDefinition.getName(), beanDefinition);
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            List<String> dependencies = new ArrayList<>();
+            for (Field field : beanDefinition.getAutowiredFields()) {
+                Class<?> dependencyType = List.class.isAssignableFrom(field.getType())
+                        ? getFieldGenericType(field)
+                        : field.getType();
+                if (dependencyType != null) {
+                    dependencies.addAll(candidateNames.apply(dependencyType));
+                }
+            }
+            this.edges.put(beanDefinition.getName(), dependencies);
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            if (!this.visitIndex.containsKey(beanDefinition.getName())) {
+                connect(beanDefinition.getName());
+            }
+        }
+        for (int i = 0; i < this.components.size(); i++) {
+            Set<Integer> dependencies = new LinkedHashSet<>();
+            for (BeanDefinition member : this.components.get(i)) {
+                for (String dependency : this.edges.get(member.getName())) {
+                    int dependencyComponent = this.componentIndex.get(dependency);
+                    if (dependencyComponent != i) {
+                        dependencies.add(dependencyComponent);
+                    }
+                }
+            }
+            this.componentDependencies.add(dependencies);
+        }
+    }
+
+    // 从启动快照恢复已经排好序的分量
+    BeanDependencyGraph(List<List<BeanDefinition>> components, List<Set<Integer>> componentDependencies) {
+        this.components.addAll(components);
+        this.componentDependencies.addAll(componentDependencies);
+        for (int i = 0; i < components.size(); i++) {
+            for (BeanDefinition member : components.get(i)) {
+                this.componentIndex.put(member.getName(), i);
+            }
+        }
+    }
+
+    // Tarjan 算法，依赖所在的分量总是先于依赖方输出
+    private void connect(String beanName) {
+        this.visitIndex.put(beanName, this.nextIndex);
+        this.lowLink.put(beanName, this.nextIndex);
+        this.nextIndex++;
+        this.stack.add(beanName);
+        this.onStack.add(beanName);
+
+        for (String dependency : this.edges.get(beanName)) {
+            if (!this.visitIndex.containsKey(dependency)) {
+                connect(dependency);
+                this.lowLink.put(beanName, Math.min(this.lowLink.get(beanName), this.lowLink.get(dependency)));
+            } else if (this.onStack.contains(dependency)) {
+                this.lowLink.put(beanName, Math.min(this.lowLink.get(beanName), this.visitIndex.get(dependency)));
+            }
+        }
+
+        if (this.lowLink.get(beanName).equals(this.visitIndex.get(beanName))) {
+            List<BeanDefinition> component = new ArrayList<>();
+            String member;
+            do {
+                member = this.stack.remove(this.stack.size() - 1);
+                this.onStack.remove(member);
+                this.componentIndex.put(member, this.components.size());
+                component.add(this.definitions.get(member));
+            } while (!member.equals(beanName));
+            this.components.add(component);
+        }
+    }
+
+    public List<List<BeanDefinition>> getComponents() {
+        return this.components;
+    }
+
+    public Set<Integer> getDependencies(int component) {
+        return this.componentDependencies.get(component);
+    }
+
+    public int getComponentIndex(String beanName) {
+        return this.componentIndex.get(beanName);
+    }
+}
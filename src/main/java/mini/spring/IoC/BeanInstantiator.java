@@ -0,0 +1,116 @@
+package mini.spring.IoC;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 负责实例化 Bean 并写入 {@link Autowired} 字段，字段按 {@link BeanDefinition#getAutowiredFields()} 的下标访问。
+ * 默认通过 {@link LambdaMetafactory} 生成构造器调用类、用 {@link MethodHandle} 写字段；
+ * 无法获得私有访问权限时退回反射实现，也可以用 {@code -Dmini.spring.injection=reflective} 强制使用反射。
+ */
+public abstract class BeanInstantiator {
+
+    public static final String INJECTION_MODE_PROPERTY = "mini.spring.injection";
+
+    private static final Logger logger = LoggerFactory.getLogger(BeanInstantiator.class);
+
+    public abstract Object instantiate() throws Exception;
+
+    public abstract void inject(Object bean, int fieldIndex, Object value) throws Exception;
+
+    public static BeanInstantiator create(Class<?> type, Constructor<?> constructor, List<Field> fields) {
+        if (!"reflective".equals(System.getProperty(INJECTION_MODE_PROPERTY))) {
+            try {
+                return new GeneratedBeanInstantiator(type, fields);
+            } catch (ReflectiveOperationException | LambdaConversionException e) {
+                logger.warn("无法为 {} 生成构造器调用和字段写入，退回反射实现: {}", type.getName(), e.toString());
+                logger.debug("生成 {} 的实例化器失败", type.getName(), e);
+            }
+        }
+        return new ReflectiveBeanInstantiator(constructor, fields);
+    }
+
+    private static final class GeneratedBeanInstantiator extends BeanInstantiator {
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Supplier<?> factory;
+        private final MethodHandle[] setters;
+
+        private GeneratedBeanInstantiator(Class<?> type, List<Field> fields)
+                throws ReflectiveOperationException, LambdaConversionException {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            MethodHandle factoryHandle = LambdaMetafactory.metafactory(
+                    lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type)
+            ).getTarget();
+            try {
+                this.factory = (Supplier<?>) factoryHandle.invoke();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // 无参的 lambda 工厂不会抛出受检异常，这里只是满足 invoke 的签名
+                throw new LambdaConversionException("无法创建 " + type.getName() + " 的构造器调用", e);
+            }
+
+            this.setters = new MethodHandle[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                this.setters[i] = lookup.unreflectSetter(fields.get(i)).asType(SETTER_TYPE);
+            }
+        }
+
+        @Override
+        public Object instantiate() {
+            return this.factory.get();
+        }
+
+        @Override
+        public void inject(Object bean, int fieldIndex, Object value) throws Exception {
+            try {
+                this.setters[fieldIndex].invokeExact(bean, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    private static final class ReflectiveBeanInstantiator extends BeanInstantiator {
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+
+        private ReflectiveBeanInstantiator(Constructor<?> constructor, List<Field> fields) {
+            this.constructor = constructor;
+            this.fields = fields.toArray(Field[]::new);
+            for (Field field : this.fields) {
+                field.setAccessible(true);
+            }
+        }
+
+        @Override
+        public Object instantiate() throws Exception {
+            return this.constructor.newInstance();
+        }
+
+        @Override
+        public void inject(Object bean, int fieldIndex, Object value) throws Exception {
+            this.fields[fieldIndex].set(bean, value);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package mini.spring.IoC;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+public class BeanPool {
+    private static final Logger logger = LoggerFactory.getLogger(BeanPool.class);
+    private static final Object NO_OWNER = new Object();
+
+    private final ArrayBlockingQueue<Object> idle;
+    private final Method resetMethod;
+    // 借出中的实例（按引用区分）及其所属的请求，用来识别重复归还
+    private final Map<Object, Object> checkedOut = new IdentityHashMap<>();
+
+    public BeanPool(int size, Method resetMethod) {
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.resetMethod = resetMethod;
+        if (resetMethod != null) {
+            resetMethod.setAccessible(true);
+        }
+    }
+
+    public Object acquire(Supplier<Object> factory) {
+        return acquire(factory, null);
+    }
+
+    // owner 为借出实例的请求，请求结束时只归还仍属于它的实例
+    public Object acquire(Supplier<Object> factory, Object owner) {
+        Object bean = this.idle.poll();
+        if (bean == null) {
+            bean = factory.get();
+        }
+        synchronized (this.checkedOut) {
+            this.checkedOut.put(bean, owner != null ? owner : NO_OWNER);
+        }
+        return bean;
+    }
+
+    public void release(Object bean) {
+        release(bean, null);
+    }
+
+    // 没有借出或已经归还过的实例不再入池，否则两次 acquire 会拿到同一个对象；
+    // 指定 owner 时，实例已被手动归还并借给别人的情况静默忽略
+    public void release(Object bean, Object owner) {
+        synchronized (this.checkedOut) {
+            Object current = this.checkedOut.get(bean);
+            if (current == null) {
+                if (owner == null) {
+                    logger.warn("实例没有从池中借出或已经归还，忽略: {}", bean.getClass().getName());
+                }
+                return;
+            }
+            if (owner != null && current != owner) {
+                return;
+            }
+            this.checkedOut.remove(bean);
+        }
+        reset(bean);
+    }
+
+    // 池满或重置失败时直接丢弃，交给 GC 回收；状态不确定的实例不能再借出去
+    private void reset(Object bean) {
+        if (this.resetMethod != null) {
+            try {
+                this.resetMethod.invoke(bean);
+            } catch (InvocationTargetException e) {
+                logger.warn("Bean 重置失败，丢弃该实例: {}", bean.getClass().getName(), e.getTargetException());
+                return;
+            } catch (IllegalAccessException e) {
+                logger.warn("Bean 重置失败，丢弃该实例: {}", bean.getClass().getName(), e);
+                return;
+            }
+        }
+        this.idle.offer(bean);
+    }
+}
@@ -0,0 +1,86 @@
+package mini.spring.IoC;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CandidateComponentsIndex {
+
+    public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/mini-spring.components";
+    public static final String IGNORE_INDEX_PROPERTY = "mini.spring.index.ignore";
+
+    private final Map<String, Set<String>> index;
+
+    private CandidateComponentsIndex(Map<String, Set<String>> index) {
+        this.index = index;
+    }
+
+    public static CandidateComponentsIndex load(ClassLoader classLoader) {
+        if (Boolean.getBoolean(IGNORE_INDEX_PROPERTY)) {
+            return null;
+        }
+        Map<String, Set<String>> index = new HashMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+            if (!resources.hasMoreElements()) {
+                return null;
+            }
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    parse(reader).forEach((className, stereotypes) ->
+                            index.computeIfAbsent(className, key -> new LinkedHashSet<>()).addAll(stereotypes));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("组件索引读取失败", e);
+        }
+        return new CandidateComponentsIndex(index);
+    }
+
+    static Map<String, Set<String>> parse(BufferedReader reader) throws IOException {
+        Map<String, Set<String>> entries = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            Set<String> stereotypes = new LinkedHashSet<>();
+            for (String stereotype : line.substring(separator + 1).split(",")) {
+                if (!stereotype.isBlank()) {
+                    stereotypes.add(stereotype.trim());
+                }
+            }
+            entries.put(line.substring(0, separator).trim(), stereotypes);
+        }
+        return entries;
+    }
+
+    public List<String> getCandidateTypes(String basePackage, Class<?> stereotype) {
+        String prefix = basePackage + ".";
+        List<String> candidates = new ArrayList<>();
+        this.index.forEach((className, stereotypes) -> {
+            if (className.startsWith(prefix) && stereotypes.contains(stereotype.getName())) {
+                candidates.add(className);
+            }
+        });
+        Collections.sort(candidates);
+        return candidates;
+    }
+}
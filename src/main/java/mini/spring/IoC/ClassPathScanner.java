@@ -0,0 +1,233 @@
+package mini.spring.IoC;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 直接解析 class 文件的常量池和 RuntimeVisibleAnnotations 属性来筛选候选组件，
+ * 扫描过程中不加载任何类。目录和 jar 包统一通过 NIO {@link FileSystem} 读取。
+ */
+public class ClassPathScanner {
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] annotationDescriptor;
+    private ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+    private int[] constantOffsets = new int[256];
+
+    public ClassPathScanner(Class<? extends Annotation> annotationType) {
+        String descriptor = "L" + annotationType.getName().replace('.', '/') + ";";
+        this.annotationDescriptor = descriptor.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public List<String> findCandidateClassNames(String packageName, ClassLoader classLoader) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        String packagePath = packageName.replace('.', '/');
+        Enumeration<URL> resources = classLoader.getResources(packagePath);
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            try {
+                if ("jar".equals(resource.getProtocol())) {
+                    scanJar(resource, packagePath, classNames);
+                } else {
+                    scanDirectory(Paths.get(resource.toURI()), classNames);
+                }
+            } catch (URISyntaxException e) {
+                throw new IOException("无法解析扫描路径 " + resource, e);
+            }
+        }
+        return classNames;
+    }
+
+    private void scanJar(URL resource, String packagePath, List<String> classNames) throws IOException, URISyntaxException {
+        String spec = resource.toString();
+        URI jarUri = new URI(spec.substring(0, spec.indexOf("!/")));
+        FileSystem fileSystem;
+        boolean created;
+        try {
+            fileSystem = FileSystems.newFileSystem(jarUri, Map.of());
+            created = true;
+        } catch (FileSystemAlreadyExistsException e) {
+            fileSystem = FileSystems.getFileSystem(jarUri);
+            created = false;
+        }
+        try {
+            scanDirectory(fileSystem.getPath(packagePath), classNames);
+        } finally {
+            if (created) {
+                fileSystem.close();
+            }
+        }
+    }
+
+    private void scanDirectory(Path root, List<String> classNames) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String fileName = path.getFileName().toString();
+                if (!fileName.endsWith(".class") || fileName.equals("module-info.class") || fileName.equals("package-info.class")) {
+                    continue;
+                }
+                String className = readCandidateClassName(path);
+                if (className != null) {
+                    classNames.add(className);
+                }
+            }
+        }
+    }
+
+    private String readCandidateClassName(Path path) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+            int size = (int) channel.size();
+            if (this.buffer.capacity() < size) {
+                this.buffer = ByteBuffer.allocate(Math.max(size, this.buffer.capacity() * 2));
+            }
+            this.buffer.clear().limit(size);
+            while (this.buffer.hasRemaining() && channel.read(this.buffer) >= 0) {
+            }
+            this.buffer.flip();
+        }
+        try {
+            return parseCandidateClassName(this.buffer);
+        } catch (RuntimeException e) {
+            throw new IOException("class 文件格式错误: " + path, e);
+        }
+    }
+
+    // 按 JVMS 4.1 的顺序跳读：常量池 -> 类头 -> 字段/方法 -> 类属性
+    private String parseCandidateClassName(ByteBuffer classFile) {
+        if (classFile.getInt(0) != CLASS_FILE_MAGIC) {
+            return null;
+        }
+        int constantCount = classFile.getShort(8) & 0xFFFF;
+        if (this.constantOffsets.length < constantCount) {
+            this.constantOffsets = new int[constantCount];
+        }
+        int position = 10;
+        for (int i = 1; i < constantCount; i++) {
+            this.constantOffsets[i] = position;
+            int tag = classFile.get(position) & 0xFF;
+            switch (tag) {
+                case 1 -> position += 3 + (classFile.getShort(position + 1) & 0xFFFF);
+                case 7, 8, 16, 19, 20 -> position += 3;
+                case 15 -> position += 4;
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> position += 5;
+                case 5, 6 -> {
+                    position += 9;
+                    i++;
+                }
+                default -> throw new IllegalStateException("未知的常量池类型 " + tag);
+            }
+        }
+
+        int thisClass = classFile.getShort(position + 2) & 0xFFFF;
+        int interfaceCount = classFile.getShort(position + 6) & 0xFFFF;
+        position += 8 + interfaceCount * 2;
+        position = skipMembers(classFile, position);
+        position = skipMembers(classFile, position);
+
+        int attributeCount = classFile.getShort(position) & 0xFFFF;
+        position += 2;
+        for (int i = 0; i < attributeCount; i++) {
+            int nameIndex = classFile.getShort(position) & 0xFFFF;
+            int length = classFile.getInt(position + 2);
+            if (utf8Equals(classFile, nameIndex, RUNTIME_VISIBLE_ANNOTATIONS) && hasAnnotation(classFile, position + 6)) {
+                int classNameIndex = classFile.getShort(this.constantOffsets[thisClass] + 1) & 0xFFFF;
+                return readUtf8(classFile, classNameIndex).replace('/', '.');
+            }
+            position += 6 + length;
+        }
+        return null;
+    }
+
+    private int skipMembers(ByteBuffer classFile, int position) {
+        int memberCount = classFile.getShort(position) & 0xFFFF;
+        position += 2;
+        for (int i = 0; i < memberCount; i++) {
+            int attributeCount = classFile.getShort(position + 6) & 0xFFFF;
+            position += 8;
+            for (int j = 0; j < attributeCount; j++) {
+                position += 6 + classFile.getInt(position + 2);
+            }
+        }
+        return position;
+    }
+
+    private boolean hasAnnotation(ByteBuffer classFile, int position) {
+        int annotationCount = classFile.getShort(position) & 0xFFFF;
+        position += 2;
+        for (int i = 0; i < annotationCount; i++) {
+            int typeIndex = classFile.getShort(position) & 0xFFFF;
+            if (utf8Equals(classFile, typeIndex, this.annotationDescriptor)) {
+                return true;
+            }
+            position = skipAnnotation(classFile, position);
+        }
+        return false;
+    }
+
+    private int skipAnnotation(ByteBuffer classFile, int position) {
+        int pairCount = classFile.getShort(position + 2) & 0xFFFF;
+        position += 4;
+        for (int i = 0; i < pairCount; i++) {
+            position = skipElementValue(classFile, position + 2);
+        }
+        return position;
+    }
+
+    private int skipElementValue(ByteBuffer classFile, int position) {
+        char tag = (char) classFile.get(position);
+        return switch (tag) {
+            case 'e' -> position + 5;
+            case '@' -> skipAnnotation(classFile, position + 1);
+            case '[' -> {
+                int valueCount = classFile.getShort(position + 1) & 0xFFFF;
+                position += 3;
+                for (int i = 0; i < valueCount; i++) {
+                    position = skipElementValue(classFile, position);
+                }
+                yield position;
+            }
+            default -> position + 3;
+        };
+    }
+
+    private boolean utf8Equals(ByteBuffer classFile, int index, byte[] expected) {
+        int offset = this.constantOffsets[index];
+        int length = classFile.getShort(offset + 1) & 0xFFFF;
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (classFile.get(offset + 3 + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readUtf8(ByteBuffer classFile, int index) {
+        int offset = this.constantOffsets[index];
+        int length = classFile.getShort(offset + 1) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        classFile.get(offset + 3, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
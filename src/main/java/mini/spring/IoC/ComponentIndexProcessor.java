@@ -0,0 +1,103 @@
+package mini.spring.IoC;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 编译期生成组件索引 {@value CandidateComponentsIndex#COMPONENTS_RESOURCE_LOCATION}，
+ * 运行时 {@link ApplicationContext} 直接读取索引，不再遍历 classpath。
+ */
+@SupportedAnnotationTypes({
+        ComponentIndexProcessor.COMPONENT,
+        ComponentIndexProcessor.CONTROLLER,
+        ComponentIndexProcessor.ASPECT
+})
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+    static final String COMPONENT = "mini.spring.IoC.Component";
+    static final String CONTROLLER = "mini.spring.web.Controller";
+    static final String ASPECT = "mini.spring.AOP.Aspect";
+
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+    private boolean previousIndexLoaded;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!this.previousIndexLoaded) {
+            loadPreviousIndex();
+            this.previousIndexLoaded = true;
+        }
+        for (TypeElement annotation : annotations) {
+            String stereotype = annotation.getQualifiedName().toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (!element.getKind().isClass()) {
+                    continue;
+                }
+                String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                this.entries.computeIfAbsent(className, key -> new TreeSet<>()).add(stereotype);
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    // 增量编译时只有部分源文件参与编译，保留上一次索引中仍然存在的类
+    private void loadPreviousIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(
+                    StandardLocation.CLASS_OUTPUT, "", CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.openInputStream(), StandardCharsets.UTF_8))) {
+                CandidateComponentsIndex.parse(reader).forEach((className, stereotypes) -> {
+                    if (processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+                        this.entries.put(className, new TreeSet<>(stereotypes));
+                    }
+                });
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeIndex() {
+        if (this.entries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+            try (Writer writer = resource.openWriter()) {
+                for (Map.Entry<String, Set<String>> entry : this.entries.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writer.write(String.join(",", entry.getValue()));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "组件索引写入失败: " + e.getMessage());
+        }
+    }
+}
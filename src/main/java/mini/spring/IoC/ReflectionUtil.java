@@ -3,6 +3,8 @@ package mini.spring.IoC;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class ReflectionUtil {
     public static Class<?> getFieldGenericType(Field field) {
@@ -30,4 +32,24 @@ public class ReflectionUtil {
         // 如果不是泛型字段，返回 null 或 Object.class
         return null;
     }
+
+    public static Set<Class<?>> getAllSuperTypes(Class<?> type) {
+        // 自身、所有父类以及直接或间接实现的接口
+        Set<Class<?>> superTypes = new LinkedHashSet<>();
+        Class<?> current = type;
+        while (current != null) {
+            superTypes.add(current);
+            collectInterfaces(current, superTypes);
+            current = current.getSuperclass();
+        }
+        return superTypes;
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> superTypes) {
+        for (Class<?> ifc : type.getInterfaces()) {
+            if (superTypes.add(ifc)) {
+                collectInterfaces(ifc, superTypes);
+            }
+        }
+    }
 }
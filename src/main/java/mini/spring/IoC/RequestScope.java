@@ -0,0 +1,121 @@
+package mini.spring.IoC;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 与当前线程绑定的请求作用域，由 DispatcherServlet 在每次请求开始和结束时调用 {@link #begin()} / {@link #end()}。
+ */
+public final class RequestScope {
+    private static final Logger logger = LoggerFactory.getLogger(RequestScope.class);
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Object> beans = new HashMap<>();
+    // 请求结束时归还的池化实例和要关闭的资源，按引用区分；手动归还的实例从这里移除
+    private final Map<Object, Runnable> releases = new IdentityHashMap<>();
+
+    private RequestScope() {
+    }
+
+    public static void begin() {
+        CURRENT.set(new RequestScope());
+    }
+
+    public static void end() {
+        RequestScope scope = CURRENT.get();
+        CURRENT.remove();
+        if (scope == null) {
+            return;
+        }
+        // 一个回调失败不能影响其余池化实例的归还
+        for (Runnable release : scope.releases.values()) {
+            try {
+                release.run();
+            } catch (RuntimeException e) {
+                logger.warn("请求作用域结束回调执行失败", e);
+            }
+        }
+    }
+
+    /**
+     * 把当前线程上的请求作用域解绑并返回，异步请求完成时由处理结果的线程调用 {@link #resume()} 重新绑定。
+     */
+    public static RequestScope suspend() {
+        RequestScope scope = CURRENT.get();
+        CURRENT.remove();
+        return scope;
+    }
+
+    /**
+     * 绑定到当前线程并返回线程上原有的作用域。完成异步结果的线程可能正在处理另一个请求，
+     * 收尾后要用 {@link #restore(RequestScope)} 把原来的作用域放回去。
+     */
+    public RequestScope resume() {
+        RequestScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(RequestScope previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static Object getBean(String beanName, Supplier<Object> factory) {
+        RequestScope scope = CURRENT.get();
+        if (scope == null) {
+            throw new IllegalStateException("当前线程没有绑定请求，无法获取 request 作用域的 Bean: " + beanName);
+        }
+        Object bean = scope.beans.get(beanName);
+        if (bean == null) {
+            bean = factory.get();
+            scope.beans.put(beanName, bean);
+        }
+        return bean;
+    }
+
+    /**
+     * 请求结束时关闭 resource。当前线程没有绑定请求时返回 false，由调用方自己负责关闭。
+     */
+    public static boolean closeAtEnd(Closeable resource) {
+        RequestScope scope = CURRENT.get();
+        if (scope == null) {
+            return false;
+        }
+        scope.releases.put(resource, () -> {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return true;
+    }
+
+    static RequestScope current() {
+        return CURRENT.get();
+    }
+
+    void registerRelease(Object bean, Runnable release) {
+        releases.put(bean, release);
+    }
+
+    void cancelRelease(Object bean) {
+        releases.remove(bean);
+    }
+}
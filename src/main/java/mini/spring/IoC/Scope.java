@@ -0,0 +1,19 @@
+package mini.spring.IoC;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Scope {
+    String SINGLETON = "singleton";
+    String PROTOTYPE = "prototype";
+    String REQUEST = "request";
+
+    String value() default SINGLETON;
+
+    // 仅对 prototype 生效，大于 0 时复用最多 poolSize 个实例
+    int poolSize() default 0;
+}
@@ -0,0 +1,14 @@
+package mini.spring.IoC;
+
+import java.util.List;
+
+/**
+ * 参与启动快照的 {@link BeanPostProcessor}：首次启动时导出自己算出的元数据，
+ * 之后的启动在处理任何 Bean 之前拿回这些数据，跳过重复的分析。
+ */
+public interface SnapshotAware {
+
+    List<String> saveSnapshot();
+
+    void restoreSnapshot(List<String> entries);
+}
@@ -0,0 +1,300 @@
+package mini.spring.IoC;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 启动快照：保存扫描得到的 Bean 定义、依赖图的分量顺序，以及各个 {@link SnapshotAware} 处理器导出的数据。
+ * 通过 {@code -Dmini.spring.snapshot=<文件>} 开启，文件以内存映射方式读取，
+ * classpath 指纹、Bean 类文件指纹或扫描包名不一致时视为失效，重新分析后覆盖写入。
+ * 新增的组件只能通过组件索引发现，没有索引（或设置了 {@link CandidateComponentsIndex#IGNORE_INDEX_PROPERTY}）时不使用快照。
+ */
+class StartupSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupSnapshot.class);
+    private static final int MAGIC = 0x4D53534E;
+    private static final int VERSION = 3;
+
+    private final List<BeanDefinition> beanDefinitions;
+    private final BeanDependencyGraph dependencyGraph;
+    private final Map<String, List<String>> sections;
+
+    private StartupSnapshot(List<BeanDefinition> beanDefinitions, BeanDependencyGraph dependencyGraph, Map<String, List<String>> sections) {
+        this.beanDefinitions = beanDefinitions;
+        this.dependencyGraph = dependencyGraph;
+        this.sections = sections;
+    }
+
+    public List<BeanDefinition> getBeanDefinitions() {
+        return beanDefinitions;
+    }
+
+    public BeanDependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    public List<String> getSection(String name) {
+        return sections.get(name);
+    }
+
+    // 快照依赖组件索引发现新增的组件类，索引不存在时既不读也不写快照
+    public static boolean isSupported(ClassLoader classLoader) {
+        return !Boolean.getBoolean(CandidateComponentsIndex.IGNORE_INDEX_PROPERTY)
+                && classLoader.getResource(CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION) != null;
+    }
+
+    // 快照不存在或已失效时返回 null
+    public static StartupSnapshot load(Path file, String packageName, ClassLoader classLoader) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != classpathHash()
+                    || !packageName.equals(readString(buffer))) {
+                logger.info("启动快照 {} 已失效，重新分析", file);
+                return null;
+            }
+            int classCount = buffer.getInt();
+            List<String> classNames = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                classNames.add(readString(buffer));
+            }
+            if (buffer.getLong() != classFilesHash(classNames, classLoader)) {
+                logger.info("启动快照 {} 记录的类文件已改变，重新分析", file);
+                return null;
+            }
+
+            int beanCount = buffer.getInt();
+            List<BeanDefinition> beanDefinitions = new ArrayList<>(beanCount);
+            for (int i = 0; i < beanCount; i++) {
+                beanDefinitions.add(readBeanDefinition(buffer, classLoader));
+            }
+
+            int componentCount = buffer.getInt();
+            List<List<BeanDefinition>> components = new ArrayList<>(componentCount);
+            List<Set<Integer>> dependencies = new ArrayList<>(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                int memberCount = buffer.getInt();
+                List<BeanDefinition> members = new ArrayList<>(memberCount);
+                for (int j = 0; j < memberCount; j++) {
+                    members.add(beanDefinitions.get(buffer.getInt()));
+                }
+                int dependencyCount = buffer.getInt();
+                Set<Integer> componentDependencies = new LinkedHashSet<>();
+                for (int j = 0; j < dependencyCount; j++) {
+                    componentDependencies.add(buffer.getInt());
+                }
+                components.add(members);
+                dependencies.add(componentDependencies);
+            }
+
+            int sectionCount = buffer.getInt();
+            Map<String, List<String>> sections = new HashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                String name = readString(buffer);
+                int entryCount = buffer.getInt();
+                List<String> entries = new ArrayList<>(entryCount);
+                for (int j = 0; j < entryCount; j++) {
+                    entries.add(readString(buffer));
+                }
+                sections.put(name, entries);
+            }
+            return new StartupSnapshot(beanDefinitions, new BeanDependencyGraph(components, dependencies), sections);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            // 快照和当前代码对不上（例如类被删除），当作没有快照处理
+            logger.info("启动快照 {} 与当前代码不一致，重新分析", file, e);
+            return null;
+        }
+    }
+
+    public static void write(Path file, String packageName, ClassLoader classLoader, List<BeanDefinition> beanDefinitions,
+                             BeanDependencyGraph dependencyGraph, Map<String, List<String>> sections) throws IOException {
+        Map<String, Integer> beanIndex = new HashMap<>();
+        for (int i = 0; i < beanDefinitions.size(); i++) {
+            beanIndex.put(beanDefinitions.get(i).getName(), i);
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(classpathHash());
+            writeString(out, packageName);
+            List<String> classNames = beanClassNames(beanDefinitions);
+            out.writeInt(classNames.size());
+            for (String className : classNames) {
+                writeString(out, className);
+            }
+            out.writeLong(classFilesHash(classNames, classLoader));
+
+            out.writeInt(beanDefinitions.size());
+            for (BeanDefinition beanDefinition : beanDefinitions) {
+                writeBeanDefinition(out, beanDefinition);
+            }
+
+            List<List<BeanDefinition>> components = dependencyGraph.getComponents();
+            out.writeInt(components.size());
+            for (int i = 0; i < components.size(); i++) {
+                out.writeInt(components.get(i).size());
+                for (BeanDefinition member : components.get(i)) {
+                    out.writeInt(beanIndex.get(member.getName()));
+                }
+                Set<Integer> dependencies = dependencyGraph.getDependencies(i);
+                out.writeInt(dependencies.size());
+                for (int dependency : dependencies) {
+                    out.writeInt(dependency);
+                }
+            }
+
+            out.writeInt(sections.size());
+            for (Map.Entry<String, List<String>> section : sections.entrySet()) {
+                writeString(out, section.getKey());
+                out.writeInt(section.getValue().size());
+                for (String entry : section.getValue()) {
+                    writeString(out, entry);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeBeanDefinition(DataOutputStream out, BeanDefinition beanDefinition) throws IOException {
+        writeString(out, beanDefinition.getBeanType().getName());
+        writeString(out, beanDefinition.getName());
+        writeString(out, beanDefinition.getScope());
+        out.writeInt(beanDefinition.getPoolSize());
+        out.writeBoolean(beanDefinition.isLazy());
+        out.writeInt(beanDefinition.getAutowiredFields().size());
+        for (Field field : beanDefinition.getAutowiredFields()) {
+            writeString(out, field.getName());
+        }
+        writeString(out, methodName(beanDefinition.getPostConstructMethod()));
+        writeString(out, methodName(beanDefinition.getPoolResetMethod()));
+    }
+
+    private static BeanDefinition readBeanDefinition(ByteBuffer buffer, ClassLoader classLoader) throws ReflectiveOperationException {
+        Class<?> type = Class.forName(readString(buffer), false, classLoader);
+        String name = readString(buffer);
+        String scope = readString(buffer);
+        int poolSize = buffer.getInt();
+        boolean lazy = buffer.get() != 0;
+        int fieldCount = buffer.getInt();
+        List<Field> autowiredFields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            autowiredFields.add(type.getDeclaredField(readString(buffer)));
+        }
+        Method postConstructMethod = findMethod(type, readString(buffer));
+        Method poolResetMethod = findMethod(type, readString(buffer));
+        return new BeanDefinition(type, name, scope, poolSize, lazy, autowiredFields, postConstructMethod, poolResetMethod);
+    }
+
+    // @PostConstruct 和 @PoolReset 方法都没有参数
+    private static Method findMethod(Class<?> type, String name) throws NoSuchMethodException {
+        return name.isEmpty() ? null : type.getDeclaredMethod(name);
+    }
+
+    private static String methodName(Method method) {
+        return method == null ? "" : method.getName();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // classpath 指纹：每个条目的路径，jar 的大小和修改时间，目录中的组件索引文件。
+    // 目录里具体类文件的变化由 classFilesHash 检查
+    static long classpathHash() throws IOException {
+        long hash = 1125899906842597L;
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            Path root = Paths.get(entry);
+            hash = 31 * hash + entry.hashCode();
+            if (Files.isDirectory(root)) {
+                Path index = root.resolve(CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+                if (Files.exists(index)) {
+                    hash = mix(hash, CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION, index);
+                }
+            } else if (Files.exists(root)) {
+                hash = mix(hash, "", root);
+            }
+        }
+        return hash;
+    }
+
+    // 快照中的数据（注入字段、初始化方法、路由、切点匹配结果）都取自 Bean 类及其父类，逐个记录这些类
+    private static List<String> beanClassNames(List<BeanDefinition> beanDefinitions) {
+        Set<String> classNames = new LinkedHashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            for (Class<?> type = beanDefinition.getBeanType(); type != null && type.getClassLoader() != null; type = type.getSuperclass()) {
+                classNames.add(type.getName());
+            }
+        }
+        return new ArrayList<>(classNames);
+    }
+
+    // 目录中的类文件按大小和修改时间计入指纹；jar 中的类已由 classpathHash 覆盖；找不到的类文件使快照失效
+    static long classFilesHash(List<String> classNames, ClassLoader classLoader) throws IOException {
+        long hash = 1125899906842597L;
+        for (String className : classNames) {
+            URL resource = classLoader.getResource(className.replace('.', '/') + ".class");
+            if (resource == null) {
+                throw new IOException("找不到类文件 " + className);
+            }
+            if ("file".equals(resource.getProtocol())) {
+                try {
+                    hash = mix(hash, className, Paths.get(resource.toURI()));
+                } catch (URISyntaxException e) {
+                    throw new IOException(e);
+                }
+            } else {
+                hash = 31 * hash + className.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String name, Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        hash = 31 * hash + name.hashCode();
+        hash = 31 * hash + attributes.size();
+        return 31 * hash + attributes.lastModifiedTime().toMillis();
+    }
+}
@@ -4,6 +4,7 @@ import mini.spring.IoC.Component;
 import mini.spring.web.Controller;
 import mini.spring.web.ModelAndView;
 import mini.spring.web.Param;
+import mini.spring.web.PathVariable;
 import mini.spring.web.RequestMapping;
 
 @Component
@@ -21,6 +22,11 @@ public class HelloController {
         return "Hello, " + name + "!";
     }
 
+    @RequestMapping(value = "/user/{name}", method = "GET")
+    public String helloUser(@PathVariable("name") String name) {
+        return "Hello, " + name + "!";
+    }
+
     @RequestMapping("/html")
     public ModelAndView helloHtml() {
         ModelAndView mav = new ModelAndView();
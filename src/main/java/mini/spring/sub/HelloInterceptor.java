@@ -4,12 +4,17 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import mini.spring.IoC.Component;
 import mini.spring.web.HandlerInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Component
 public class HelloInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(HelloInterceptor.class);
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        System.out.println("------ 这是一条来自拦截器的分割线 ------");
+        // 每个请求都会经过，只在 debug 级别输出；请求记录由访问日志负责
+        logger.debug("------ 这是一条来自拦截器的分割线 ------");
         return true;
     }
 
@@ -0,0 +1,349 @@
+package mini.spring.web;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志。工作线程把定长记录（时间、方法、路由、状态码、耗时、字节数）写进预分配的多生产者单消费者环形缓冲区，
+ * 后台线程批量格式化后用 {@link FileChannel} 写入文件，文件超过上限时滚动。
+ * 发布记录只有一次 CAS 和几次数组写，不分配对象；缓冲区满时按配置丢弃记录或等待。
+ */
+final class AccessLog {
+
+    /** 日志文件路径，不设置时不记录访问日志 */
+    static final String FILE_PROPERTY = "mini.spring.accesslog.file";
+    /** 环形缓冲区容量，向上取整为 2 的幂 */
+    static final String CAPACITY_PROPERTY = "mini.spring.accesslog.capacity";
+    /** 缓冲区满时的策略：drop（默认，丢弃并计数）或 block（等待后台线程腾出空间） */
+    static final String POLICY_PROPERTY = "mini.spring.accesslog.policy";
+    /** 单个文件的字节上限和保留的历史文件数 */
+    static final String MAX_SIZE_PROPERTY = "mini.spring.accesslog.max-size";
+    static final String MAX_FILES_PROPERTY = "mini.spring.accesslog.max-files";
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final DateTimeFormatter SECOND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    // 请求方法按内容查预编码结果，容器每次给出的可能是新字符串
+    private static final Map<String, byte[]> METHOD_BYTES = new HashMap<>();
+
+    static {
+        for (String method : List.of("GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "TRACE", "CONNECT")) {
+            METHOD_BYTES.put(method, method.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private final int mask;
+    private final boolean block;
+    // 每个槽位最近一次发布的序号，消费者据此判断槽位是否写完
+    private final long[] published;
+    private final long[] timestamps;
+    private final String[] methods;
+    private final String[] routes;
+    private final boolean[] routePatterns;
+    private final int[] statuses;
+    private final long[] latencies;
+    private final long[] bytes;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+
+    private final Path file;
+    private final long maxSize;
+    private final int maxFiles;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // 以下只由后台线程访问
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final Map<String, byte[]> encoded = new IdentityHashMap<>();
+    private FileChannel channel;
+    private long size;
+    private long currentSecond = -1;
+    private byte[] secondPrefix;
+    private long reportedDropped;
+
+    // 构造后需调用 start() 才开始写文件，测试里可以先不启动后台线程来填满缓冲区
+    AccessLog(Path file, int capacity, boolean block, long maxSize, int maxFiles) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.block = block;
+        this.published = new long[size];
+        for (int i = 0; i < size; i++) {
+            this.published[i] = -1;
+        }
+        this.timestamps = new long[size];
+        this.methods = new String[size];
+        this.routes = new String[size];
+        this.routePatterns = new boolean[size];
+        this.statuses = new int[size];
+        this.latencies = new long[size];
+        this.bytes = new long[size];
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+        this.writer = new Thread(this::drainLoop, "mini-spring-access-log");
+        this.writer.setDaemon(true);
+    }
+
+    void start() {
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "mini-spring-access-log-shutdown"));
+    }
+
+    /**
+     * 按系统属性创建访问日志，未配置 {@link #FILE_PROPERTY} 时返回 null。
+     */
+    static AccessLog fromSystemProperties() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        String policy = System.getProperty(POLICY_PROPERTY, "drop");
+        if (!policy.equals("drop") && !policy.equals("block")) {
+            throw new IllegalArgumentException("不支持的访问日志策略 " + policy + "，可选 drop 或 block");
+        }
+        AccessLog accessLog = new AccessLog(Paths.get(file),
+                Integer.getInteger(CAPACITY_PROPERTY, 8192),
+                policy.equals("block"),
+                Long.getLong(MAX_SIZE_PROPERTY, 64L * 1024 * 1024),
+                Integer.getInteger(MAX_FILES_PROPERTY, 5));
+        accessLog.start();
+        return accessLog;
+    }
+
+    /**
+     * routePattern 为 true 表示 route 是注册时的路由模式（同一个字符串实例反复出现），编码结果可以缓存；
+     * 未匹配请求的原始路径每次都是新字符串，不缓存。
+     */
+    void record(String method, String route, boolean routePattern, int status, long latencyNanos, long bytesWritten) {
+        long sequence;
+        while (true) {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                if (!block || !running) {
+                    dropped.increment();
+                    return;
+                }
+                LockSupport.parkNanos(50_000);
+                continue;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int index = (int) sequence & mask;
+        timestamps[index] = System.currentTimeMillis();
+        methods[index] = method;
+        routes[index] = route;
+        routePatterns[index] = routePattern;
+        statuses[index] = status;
+        latencies[index] = latencyNanos;
+        bytes[index] = bytesWritten;
+        PUBLISHED.setRelease(published, index, sequence);
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drainLoop() {
+        try {
+            openChannel();
+            while (running) {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            drain();
+        } catch (IOException e) {
+            running = false;
+            throw new IllegalStateException("写访问日志失败 " + file, e);
+        } finally {
+            closeChannel();
+        }
+    }
+
+    // 取出所有已发布的记录，每满一个缓冲区写一次文件
+    private int drain() throws IOException {
+        int count = 0;
+        long sequence = head;
+        while (true) {
+            int index = (int) sequence & mask;
+            if ((long) PUBLISHED.getAcquire(published, index) != sequence) {
+                break;
+            }
+            if (buffer.remaining() < 512) {
+                flush();
+            }
+            format(index);
+            methods[index] = null;
+            routes[index] = null;
+            sequence++;
+            head = sequence;
+            count++;
+        }
+        long droppedNow = dropped.sum();
+        if (droppedNow != reportedDropped) {
+            if (buffer.remaining() < 512) {
+                flush();
+            }
+            put("# dropped ", true);
+            putLong(droppedNow - reportedDropped);
+            buffer.put((byte) '\n');
+            reportedDropped = droppedNow;
+            count++;
+        }
+        if (buffer.position() > 0) {
+            flush();
+        }
+        return count;
+    }
+
+    // 2026-01-01 12:00:00.123 GET /user/{name} 200 153us 27
+    private void format(int index) {
+        long timestamp = timestamps[index];
+        long second = timestamp / 1000;
+        if (second != currentSecond) {
+            currentSecond = second;
+            secondPrefix = SECOND_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.US_ASCII);
+        }
+        buffer.put(secondPrefix);
+        buffer.put((byte) '.');
+        int millis = (int) (timestamp % 1000);
+        buffer.put((byte) ('0' + millis / 100)).put((byte) ('0' + millis / 10 % 10)).put((byte) ('0' + millis % 10));
+        buffer.put((byte) ' ');
+        String method = methods[index];
+        byte[] methodBytes = method != null ? METHOD_BYTES.get(method) : null;
+        if (methodBytes != null) {
+            buffer.put(methodBytes);
+        } else {
+            put(method, false);
+        }
+        buffer.put((byte) ' ');
+        put(routes[index], routePatterns[index]);
+        buffer.put((byte) ' ');
+        putLong(statuses[index]);
+        buffer.put((byte) ' ');
+        putLong(latencies[index] / 1000);
+        buffer.put((byte) 'u').put((byte) 's').put((byte) ' ');
+        putLong(bytes[index]);
+        buffer.put((byte) '\n');
+    }
+
+    private void put(String value, boolean cacheable) {
+        if (value == null) {
+            buffer.put((byte) '-');
+            return;
+        }
+        byte[] data = cacheable ? encoded.get(value) : null;
+        if (data == null) {
+            data = value.getBytes(StandardCharsets.UTF_8);
+            // 只缓存路由模式这类有限集合，按实例比较；上限只是兜底
+            if (cacheable && encoded.size() < 4096) {
+                encoded.put(value, data);
+            }
+        }
+        if (data.length > buffer.remaining() - 64) {
+            buffer.put(data, 0, Math.max(0, buffer.remaining() - 64));
+        } else {
+            buffer.put(data);
+        }
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            return;
+        }
+        if (value >= 10) {
+            putLong(value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        if (size + buffer.remaining() > maxSize && size > 0) {
+            rotate();
+        }
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // access.log -> access.log.1 -> ... -> access.log.{maxFiles}，最旧的删除
+    private void rotate() throws IOException {
+        closeChannel();
+        Path oldest = sibling(maxFiles);
+        Files.deleteIfExists(oldest);
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = sibling(i);
+            if (Files.exists(from)) {
+                Files.move(from, sibling(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, sibling(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        openChannel();
+    }
+
+    private Path sibling(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openChannel() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    // 停止接收新记录，等后台线程把剩下的写完
+    void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package mini.spring.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 单个处理器参数的取值逻辑，在注册处理器时由 {@link ArgumentResolvers} 根据参数的注解和类型一次性确定，
+ * 请求时不再做任何反射查找。
+ */
+@FunctionalInterface
+interface ArgumentResolver {
+
+    Object resolve(HttpServletRequest req, HttpServletResponse resp, Router.RouteMatch match) throws Exception;
+}
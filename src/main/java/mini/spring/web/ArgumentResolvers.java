@@ -0,0 +1,243 @@
+package mini.spring.web;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import mini.spring.IoC.RequestScope;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 构造 {@link ArgumentResolver}：内置基本类型、枚举、日期、数组/集合和 {@link RequestBody} 对象的转换，
+ * 可以通过 {@link ParameterConverter} 组件扩展。
+ */
+final class ArgumentResolvers {
+
+    private static final Map<Class<?>, Function<String, ?>> BUILTIN_CONVERTERS = Map.ofEntries(
+            Map.entry(String.class, value -> value),
+            Map.entry(Integer.class, Integer::valueOf),
+            Map.entry(int.class, Integer::valueOf),
+            Map.entry(Long.class, Long::valueOf),
+            Map.entry(long.class, Long::valueOf),
+            Map.entry(Short.class, Short::valueOf),
+            Map.entry(short.class, Short::valueOf),
+            Map.entry(Byte.class, Byte::valueOf),
+            Map.entry(byte.class, Byte::valueOf),
+            Map.entry(Double.class, Double::valueOf),
+            Map.entry(double.class, Double::valueOf),
+            Map.entry(Float.class, Float::valueOf),
+            Map.entry(float.class, Float::valueOf),
+            Map.entry(Boolean.class, Boolean::valueOf),
+            Map.entry(boolean.class, Boolean::valueOf),
+            Map.entry(Character.class, ArgumentResolvers::toCharacter),
+            Map.entry(char.class, ArgumentResolvers::toCharacter),
+            Map.entry(BigDecimal.class, BigDecimal::new),
+            Map.entry(BigInteger.class, BigInteger::new),
+            Map.entry(UUID.class, UUID::fromString),
+            Map.entry(LocalDate.class, LocalDate::parse),
+            Map.entry(LocalDateTime.class, LocalDateTime::parse),
+            Map.entry(LocalTime.class, LocalTime::parse),
+            Map.entry(Instant.class, Instant::parse),
+            Map.entry(Date.class, value -> Date.from(Instant.parse(value)))
+    );
+
+    private ArgumentResolvers() {
+    }
+
+    static ArgumentResolver create(Parameter parameter, List<ParameterConverter> converters) {
+        Class<?> type = parameter.getType();
+        if (type == HttpServletRequest.class) {
+            return (req, resp, match) -> req;
+        }
+        if (type == HttpServletResponse.class) {
+            return (req, resp, match) -> resp;
+        }
+        if (parameter.isAnnotationPresent(RequestBody.class)) {
+            Type bodyType = parameter.getParameterizedType();
+            // Stream / Iterator 参数按 NDJSON 逐行惰性解析，处理器消费多少读多少；
+            // 格式错误的行在消费时抛出 BadRequestException；关闭 Stream 时关闭 reader，
+            // 处理器没有关闭或拿到的是 Iterator 时由请求结束时关闭
+            if (type == Stream.class || type == Iterator.class) {
+                Type recordType = elementTypeArgument(bodyType);
+                return (req, resp, match) -> {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(req.getInputStream(), StandardCharsets.UTF_8));
+                    RequestScope.closeAtEnd(reader);
+                    Stream<Object> records = reader.lines()
+                            .filter(line -> !line.isBlank())
+                            .map(line -> parseRecord(line, recordType))
+                            .onClose(() -> closeReader(reader));
+                    return type == Stream.class ? records : records.iterator();
+                };
+            }
+            // 直接从输入流解析，不先把请求体读成字符串
+            return (req, resp, match) -> {
+                if (req.getContentLengthLong() == 0) {
+                    return null;
+                }
+                try {
+                    return JSON.parseObject(req.getInputStream(), bodyType);
+                } catch (JSONException e) {
+                    throw new BadRequestException("请求体格式错误", e);
+                }
+            };
+        }
+
+        PathVariable pathVariable = parameter.getAnnotation(PathVariable.class);
+        Param param = parameter.getAnnotation(Param.class);
+        String name;
+        if (pathVariable != null) {
+            name = pathVariable.value().isEmpty() ? parameter.getName() : pathVariable.value();
+        } else {
+            name = param != null && !param.value().isEmpty() ? param.value() : parameter.getName();
+        }
+
+        if (type.isArray() || Collection.class.isAssignableFrom(type)) {
+            Class<?> elementType = type.isArray() ? type.getComponentType() : elementType(parameter.getParameterizedType());
+            Function<String, Object> converter = converter(name, elementType, converters);
+            if (converter == null) {
+                return (req, resp, match) -> null;
+            }
+            return (req, resp, match) -> {
+                String[] values = pathVariable != null
+                        ? splitValues(match.getVariable(name))
+                        : req.getParameterValues(name);
+                if (values != null && values.length == 1) {
+                    values = splitValues(values[0]);
+                }
+                return toMultiValue(type, elementType, values, converter);
+            };
+        }
+
+        Function<String, Object> converter = converter(name, type, converters);
+        if (converter == null) {
+            return (req, resp, match) -> null;
+        }
+        if (pathVariable != null) {
+            return (req, resp, match) -> converter.apply(match.getVariable(name));
+        }
+        return (req, resp, match) -> converter.apply(req.getParameter(name));
+    }
+
+    // 缺失的参数：引用类型为 null，基本类型取默认值；无法转换时抛出 BadRequestException
+    private static Function<String, Object> converter(String name, Class<?> type, List<ParameterConverter> converters) {
+        Function<String, ?> conversion = null;
+        for (ParameterConverter converter : converters) {
+            if (converter.supports(type)) {
+                conversion = value -> converter.convert(value, type);
+                break;
+            }
+        }
+        if (conversion == null) {
+            conversion = BUILTIN_CONVERTERS.get(type);
+        }
+        if (conversion == null && type.isEnum()) {
+            conversion = value -> toEnum(type, value);
+        }
+        if (conversion == null) {
+            return null;
+        }
+
+        Function<String, ?> finalConversion = conversion;
+        Object missing = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        boolean string = type == String.class;
+        return value -> {
+            if (value == null || (!string && value.isEmpty())) {
+                return missing;
+            }
+            try {
+                return finalConversion.apply(value);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("参数 " + name + " 格式错误: " + value, e);
+            }
+        };
+    }
+
+    private static Object parseRecord(String line, Type recordType) {
+        try {
+            return JSON.parseObject(line, recordType);
+        } catch (JSONException e) {
+            throw new BadRequestException("请求体中的记录格式错误", e);
+        }
+    }
+
+    private static void closeReader(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Type elementTypeArgument(Type type) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            return parameterizedType.getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
+    private static Class<?> elementType(Type type) {
+        if (type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> elementType) {
+            return elementType;
+        }
+        return String.class;
+    }
+
+    private static String[] splitValues(String value) {
+        return value == null ? null : value.split(",");
+    }
+
+    private static Object toMultiValue(Class<?> type, Class<?> elementType, String[] values, Function<String, Object> converter) {
+        int length = values == null ? 0 : values.length;
+        if (type.isArray()) {
+            Object array = Array.newInstance(elementType, length);
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, converter.apply(values[i]));
+            }
+            return array;
+        }
+        Collection<Object> collection = Set.class.isAssignableFrom(type) ? new LinkedHashSet<>() : new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            collection.add(converter.apply(values[i]));
+        }
+        return collection;
+    }
+
+    private static Character toCharacter(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException(value);
+        }
+        return value.charAt(0);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> type, String value) {
+        return Enum.valueOf((Class<? extends Enum>) type, value);
+    }
+}
@@ -0,0 +1,7 @@
+package mini.spring.web;
+
+class BadRequestException extends RuntimeException {
+    BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
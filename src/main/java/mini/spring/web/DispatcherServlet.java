@@ -1,6 +1,8 @@
 package mini.spring.web;
 
-import com.alibaba.fastjson2.JSONObject;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,110 +11,233 @@ import mini.spring.AOP.DynamicProxyFactory;
 import mini.spring.IoC.Autowired;
 import mini.spring.IoC.BeanPostProcessor;
 import mini.spring.IoC.Component;
+import mini.spring.IoC.PostConstruct;
+import mini.spring.IoC.RequestScope;
+import mini.spring.IoC.SnapshotAware;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 @Component
-public class DispatcherServlet extends HttpServlet implements BeanPostProcessor {
+public class DispatcherServlet extends HttpServlet implements BeanPostProcessor, SnapshotAware {
+
+    // doService 的返回值，表示请求转入异步处理
+    private static final long ASYNC = -1;
 
     @Autowired
     private List<HandlerInterceptor> interceptors = new ArrayList<>();
-    private Map<String, WebHandler> handlerMap = new HashMap<>();
+    @Autowired
+    private List<ParameterConverter> parameterConverters = new ArrayList<>();
+    private List<InterceptorRegistration> interceptorRegistrations = List.of();
+    private final Router router = new Router();
+    private final AccessLog accessLog = AccessLog.fromSystemProperties();
+    // 指标始终记录，属性只控制是否暴露 /metrics 接口
+    private final boolean metricsExposed = Boolean.parseBoolean(System.getProperty(MetricsEndpoint.ENABLED_PROPERTY, "false"));
+    private final String metricsPath = System.getProperty(MetricsEndpoint.PATH_PROPERTY, "/metrics");
+    // 404 / 405 以及指标接口本身
+    private final RouteMetrics unmatchedMetrics = new RouteMetrics("unmatched", "*");
+    private final List<RouteMetrics> routeMetrics = new CopyOnWriteArrayList<>(List.of(unmatchedMetrics));
+    private final ViewCache viewCache = new ViewCache(this.getClass().getClassLoader());
+    // 平台线程池的线程反复处理请求，按线程复用；虚拟线程每个请求一个，缓存只会多一次 ThreadLocalMap 写入
+    private final ThreadLocal<Router.RouteMatch> routeMatches = ThreadLocal.withInitial(Router.RouteMatch::new);
+    // 路由表快照，每条为 路径\t控制器类名\t方法签名\tHTTP 方法（逗号分隔，可为空）
+    private Set<String> routeTable = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, List<String[]>> restoredRoutes = Map.of();
 
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        WebHandler handler = findHandler(req);
+        long startNanos = System.nanoTime();
+        Router.RouteMatch match = Thread.currentThread().isVirtual() ? new Router.RouteMatch() : routeMatches.get();
+        WebHandler handler = router.find(req.getMethod(), req.getRequestURI(), match);
+        long bytesWritten = 0;
+        boolean failed = true;
+        RequestScope.begin();
+        try {
+            bytesWritten = doService(req, resp, handler, match, startNanos);
+            failed = false;
+        } finally {
+            RequestScope.end();
+            // 异步请求在完成时记录
+            if (bytesWritten != ASYNC) {
+                recordCompletion(req, resp, handler, startNanos, failed, bytesWritten);
+            }
+        }
+    }
+
+    // 返回框架自己写出的响应体字节数，拦截器直接写出的内容不计入；转入异步处理时返回 ASYNC
+    private long doService(HttpServletRequest req, HttpServletResponse resp, WebHandler handler,
+                           Router.RouteMatch match, long startNanos) throws ServletException, IOException {
+        if (handler == null && match.isPathMatched()) {
+            resp.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return writeText(resp, "405 Method Not Allowed");
+        }
+        if (handler == null && metricsExposed && metricsPath.equals(req.getRequestURI())) {
+            return MetricsEndpoint.write(routeMetrics, accessLog, resp);
+        }
         if (handler == null) {
-            resp.setContentType("text/html;charset=UTF-8");
-            resp.getWriter().write("404 Not Found");
-            return;
+            return writeText(resp, "404 Not Found");
         }
         Exception ex = null;
+        boolean async = false;
+        long bytesWritten = 0;
 
         try {
-            for (HandlerInterceptor interceptor : interceptors) {
-                if (!interceptor.preHandle(req, resp, handler)) {
-                    return;
-                }
-            }
-
-            Object controllerBean = handler.getControllerBean();
-            Method method = handler.getMethod();
-            Object[] args = resolveArgs(req, method);
-            Object result = method.invoke(controllerBean, args);
-
-            for (HandlerInterceptor interceptor : interceptors) {
-                interceptor.postHandle(req, resp, handler, result);
+            if (!handler.applyPreHandle(req, resp)) {
+                return 0;
             }
+            Object result = handler.invoke(req, resp, match);
 
-            switch (handler.getResultType()) {
-                case JSON -> {
-                    resp.setContentType("application/json;charset=UTF-8");
-                    resp.getWriter().write(JSONObject.toJSONString(result));
-                }
-                case HTML -> {
-                    resp.setContentType("text/html;charset=UTF-8");
-                    resp.getWriter().write(result.toString());
-                }
-                case LOCAL -> {
-                    ModelAndView modelAndView = (ModelAndView) result;
-                    String view = modelAndView.getView();
-                    InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(view);
-                    try(inputStream) {
-                        String html = new String(inputStream.readAllBytes());
-                        resp.setContentType("text/html;charset=UTF-8");
-                        resp.getWriter().write(html);
-                    }
-                }
+            if (handler.isAsync()) {
+                CompletionStage<?> stage = result == null ? CompletableFuture.completedStage(null) : (CompletionStage<?>) result;
+                startAsync(req, resp, handler, stage, startNanos);
+                async = true;
+                return ASYNC;
             }
+            bytesWritten = handler.handleResult(req, resp, result);
+        } catch (BadRequestException e) {
+            ex = e;
+            bytesWritten = writeBadRequest(resp, e);
         } catch (Exception e) {
             ex = e;
             throw new ServletException(e);
         } finally {
-            for (HandlerInterceptor interceptor : interceptors) {
-                try {
-                    interceptor.afterCompletion(req, resp, handler, ex);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+            if (!async) {
+                handler.triggerAfterCompletion(req, resp, ex);
             }
         }
+        return bytesWritten;
     }
 
-    private Object[] resolveArgs(HttpServletRequest req, Method method) {
-        Parameter[] parameters = method.getParameters();
-        Object[] args = new Object[parameters.length];
-
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter parameter = parameters[i];
-            Param param = parameter.getAnnotation(Param.class);
-            String val;
-            if (param != null) {
-                val = req.getParameter(param.value());
-            } else {
-                val = req.getParameter(parameter.getName());
-            }
+    private void recordCompletion(HttpServletRequest req, HttpServletResponse resp, WebHandler handler, long startNanos,
+                                  boolean failed, long bytesWritten) {
+        long nanos = System.nanoTime() - startNanos;
+        int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : resp.getStatus();
+        (handler != null ? handler.getMetrics() : unmatchedMetrics).record(status, nanos, bytesWritten);
+        if (accessLog != null) {
+            boolean routePattern = handler != null && handler.getPath() != null;
+            String route = routePattern ? handler.getPath() : req.getRequestURI();
+            accessLog.record(req.getMethod(), route, routePattern, status, nanos, bytesWritten);
+        }
+    }
+
+    private long writeBadRequest(HttpServletResponse resp, BadRequestException e) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        return writeText(resp, "400 Bad Request: " + e.getMessage());
+    }
+
+    private long writeText(HttpServletResponse resp, String text) throws IOException {
+        resp.setContentType("text/html;charset=UTF-8");
+        resp.getWriter().write(text);
+        return WebHandler.utf8Length(text);
+    }
+
+    // 容器线程在这里就返回了，请求作用域跟着异步结果走，由完成结果的线程重新绑定
+    private void startAsync(HttpServletRequest req, HttpServletResponse resp, WebHandler handler, CompletionStage<?> stage,
+                            long startNanos) {
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        AsyncCompletion completion = new AsyncCompletion(asyncContext, req, resp, handler, RequestScope.suspend(), startNanos);
+        asyncContext.addListener(completion);
+        stage.whenComplete(completion);
+    }
 
-            Class<?> paramType = parameter.getType();
-            if (String.class.isAssignableFrom(paramType)) {
-                args[i] = val;
-            } else if (Integer.class.isAssignableFrom(paramType)) {
-                args[i] = Integer.parseInt(val);
-            } else {
-                args[i] = null;
+    /**
+     * 异步结果完成、超时或出错时收尾：postHandle、渲染、afterCompletion，最后结束请求作用域并 complete。
+     * 三者只有先到的一个生效。
+     */
+    private final class AsyncCompletion implements BiConsumer<Object, Throwable>, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final HttpServletRequest req;
+        private final HttpServletResponse resp;
+        private final WebHandler handler;
+        private final RequestScope scope;
+        private final long startNanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private AsyncCompletion(AsyncContext asyncContext, HttpServletRequest req, HttpServletResponse resp,
+                                WebHandler handler, RequestScope scope, long startNanos) {
+            this.asyncContext = asyncContext;
+            this.req = req;
+            this.resp = resp;
+            this.handler = handler;
+            this.scope = scope;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void accept(Object result, Throwable error) {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
             }
+            finish(result, error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
 
-        return args;
-    }
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            finish(null, new TimeoutException("异步请求超时"), HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            finish(null, event.getThrowable(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
 
-    private WebHandler findHandler(HttpServletRequest req) {
-        String path = req.getRequestURI();
-        return handlerMap.get(path);
+        private void finish(Object result, Throwable error, int errorStatus) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            RequestScope previous = scope != null ? scope.resume() : null;
+            Exception ex = null;
+            long bytesWritten = 0;
+            try {
+                if (error == null) {
+                    bytesWritten = handler.handleResult(req, resp, result);
+                } else if (error instanceof BadRequestException e) {
+                    ex = e;
+                    bytesWritten = writeBadRequest(resp, e);
+                } else {
+                    ex = error instanceof Exception e ? e : new ServletException(error);
+                    if (!resp.isCommitted()) {
+                        resp.sendError(errorStatus);
+                    }
+                }
+            } catch (BadRequestException e) {
+                ex = e;
+            } catch (Exception e) {
+                ex = e;
+                if (!resp.isCommitted()) {
+                    resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } finally {
+                try {
+                    handler.triggerAfterCompletion(req, resp, ex);
+                } finally {
+                    if (scope != null) {
+                        RequestScope.end();
+                        RequestScope.restore(previous);
+                    }
+                    recordCompletion(req, resp, handler, startNanos, false, bytesWritten);
+                    asyncContext.complete();
+                }
+            }
+        }
     }
 
     @Override
@@ -121,6 +246,19 @@ public class DispatcherServlet extends HttpServlet implements BeanPostProcessor
         if (!targetClass.isAnnotationPresent(Controller.class)) {
             return bean;
         }
+        List<String[]> routes = restoredRoutes.get(targetClass.getName());
+        if (routes != null) {
+            Map<String, Method> methods = new HashMap<>();
+            for (Method method : targetClass.getDeclaredMethods()) {
+                methods.put(signature(method), method);
+            }
+            for (String[] route : routes) {
+                String[] httpMethods = route[3].isEmpty() ? new String[0] : route[3].split(",");
+                registerHandler(route[0], httpMethods, bean, methods.get(route[2]));
+            }
+            return bean;
+        }
+
         RequestMapping classRm = targetClass.getAnnotation(RequestMapping.class);
         String basePath = classRm == null ? "" : classRm.value();
         Arrays.stream(targetClass.getDeclaredMethods())
@@ -128,10 +266,57 @@ public class DispatcherServlet extends HttpServlet implements BeanPostProcessor
                 .forEach(method -> {
                     RequestMapping methodRm = method.getAnnotation(RequestMapping.class);
                     String path = basePath + methodRm.value();
-                    if (handlerMap.put(path, new WebHandler(bean, method)) != null) {
-                        throw new RuntimeException("controller 定义重复" + path);
-                    }
+                    // 方法上没有声明 HTTP 方法时沿用类上的声明
+                    String[] httpMethods = methodRm.method().length > 0 || classRm == null ? methodRm.method() : classRm.method();
+                    registerHandler(path, httpMethods, bean, method);
+                    routeTable.add(path + "\t" + targetClass.getName() + "\t" + signature(method) + "\t" + String.join(",", httpMethods));
                 });
         return bean;
     }
+
+    private void registerHandler(String path, String[] httpMethods, Object bean, Method method) {
+        if (method == null) {
+            throw new RuntimeException("启动快照中的路由与代码不一致 " + path);
+        }
+        List<HandlerInterceptor> applicable = new ArrayList<>();
+        for (InterceptorRegistration registration : interceptorRegistrations) {
+            HandlerInterceptor interceptor = registration.forRoute(path);
+            if (interceptor != null) {
+                applicable.add(interceptor);
+            }
+        }
+        RouteMetrics metrics = new RouteMetrics(path, httpMethods.length == 0 ? "*" : String.join(",", httpMethods));
+        WebHandler handler = new WebHandler(path, bean, method, parameterConverters,
+                applicable.toArray(new HandlerInterceptor[0]), viewCache, metrics);
+        router.register(path, httpMethods, handler);
+        routeMetrics.add(metrics);
+    }
+
+    @PostConstruct
+    public void initInterceptorRegistrations() {
+        // 稳定排序，order 相同的保持注入顺序
+        this.interceptorRegistrations = interceptors.stream()
+                .map(InterceptorRegistration::new)
+                .sorted(Comparator.comparingInt(InterceptorRegistration::getOrder))
+                .toList();
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    @Override
+    public List<String> saveSnapshot() {
+        return new ArrayList<>(routeTable);
+    }
+
+    @Override
+    public void restoreSnapshot(List<String> entries) {
+        Map<String, List<String[]>> restored = new HashMap<>();
+        for (String entry : entries) {
+            String[] route = entry.split("\t", -1);
+            restored.computeIfAbsent(route[1], key -> new ArrayList<>()).add(route);
+        }
+        this.restoredRoutes = restored;
+    }
 }
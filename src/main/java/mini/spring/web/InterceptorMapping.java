@@ -0,0 +1,22 @@
+package mini.spring.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明 {@link HandlerInterceptor} 作用的路径和执行顺序，路径语法与 {@link RequestMapping} 相同。
+ * 没有标注的拦截器作用于所有路径，order 为 0。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InterceptorMapping {
+    // 为空时匹配所有路径
+    String[] include() default {};
+
+    String[] exclude() default {};
+
+    // 越小越先执行 preHandle，order 相同时按注册顺序
+    int order() default 0;
+}
@@ -0,0 +1,127 @@
+package mini.spring.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import mini.spring.AOP.DynamicProxyFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个拦截器连同它的 {@link InterceptorMapping}，在注册路由时决定该拦截器是否进入这条路由的处理链。
+ */
+final class InterceptorRegistration {
+
+    private final HandlerInterceptor interceptor;
+    private final PathPattern[] includes;
+    private final PathPattern[] excludes;
+    private final int order;
+
+    InterceptorRegistration(HandlerInterceptor interceptor) {
+        this.interceptor = interceptor;
+        InterceptorMapping mapping = DynamicProxyFactory.getOriginalClass(interceptor).getAnnotation(InterceptorMapping.class);
+        this.includes = mapping == null ? new PathPattern[0] : compile(mapping.include());
+        this.excludes = mapping == null ? new PathPattern[0] : compile(mapping.exclude());
+        this.order = mapping == null ? 0 : mapping.order();
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    /**
+     * 返回该拦截器在这条路由上的形态：不适用时为 null，确定适用时为拦截器本身，
+     * 需要看实际请求路径才能确定时包一层按路径判断的拦截器。
+     */
+    HandlerInterceptor forRoute(String routePattern) {
+        PathPattern.Match included = includes.length == 0 ? PathPattern.Match.YES : PathPattern.Match.NO;
+        for (PathPattern include : includes) {
+            PathPattern.Match match = include.matchRoute(routePattern);
+            if (match.compareTo(included) > 0) {
+                included = match;
+            }
+        }
+        if (included == PathPattern.Match.NO) {
+            return null;
+        }
+        boolean uncertain = included == PathPattern.Match.MAYBE;
+        for (PathPattern exclude : excludes) {
+            PathPattern.Match match = exclude.matchRoute(routePattern);
+            if (match == PathPattern.Match.YES) {
+                return null;
+            }
+            uncertain |= match == PathPattern.Match.MAYBE;
+        }
+        return uncertain ? new PathMatchingInterceptor(interceptor, includes, excludes) : interceptor;
+    }
+
+    private static PathPattern[] compile(String[] patterns) {
+        return Arrays.stream(patterns).map(PathPattern::new).toArray(PathPattern[]::new);
+    }
+
+    /**
+     * 每个请求只在 preHandle 时按实际路径判断一次，结果存进请求属性，postHandle 和 afterCompletion 直接读取；
+     * 前面的拦截器中断了 preHandle 时属性不存在，afterCompletion 再现场判断。
+     */
+    private static final class PathMatchingInterceptor implements HandlerInterceptor {
+        private static final AtomicInteger IDS = new AtomicInteger();
+
+        private final HandlerInterceptor delegate;
+        private final PathPattern[] includes;
+        private final PathPattern[] excludes;
+        private final String attribute;
+
+        private PathMatchingInterceptor(HandlerInterceptor delegate, PathPattern[] includes, PathPattern[] excludes) {
+            this.delegate = delegate;
+            this.includes = includes;
+            this.excludes = excludes;
+            this.attribute = PathMatchingInterceptor.class.getName() + "." + IDS.incrementAndGet();
+        }
+
+        private boolean appliesCached(HttpServletRequest request) {
+            Object cached = request.getAttribute(attribute);
+            return cached != null ? (Boolean) cached : applies(request);
+        }
+
+        private boolean applies(HttpServletRequest request) {
+            String path = request.getRequestURI();
+            boolean included = includes.length == 0;
+            for (PathPattern include : includes) {
+                if (include.matches(path)) {
+                    included = true;
+                    break;
+                }
+            }
+            if (!included) {
+                return false;
+            }
+            for (PathPattern exclude : excludes) {
+                if (exclude.matches(path)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+            boolean applies = applies(request);
+            request.setAttribute(attribute, applies);
+            return !applies || delegate.preHandle(request, response, handler);
+        }
+
+        @Override
+        public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, Object result) throws Exception {
+            if (appliesCached(request)) {
+                delegate.postHandle(request, response, handler, result);
+            }
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+            if (appliesCached(request)) {
+                delegate.afterCompletion(request, response, handler, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package mini.spring.web;
+
+import com.alibaba.fastjson2.JSONWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+/**
+ * 把处理器返回值序列化为 UTF-8 字节直接写入响应输出流，不经过 String 和 Writer。
+ * JSONWriter 的缓冲区由 fastjson2 按线程缓存复用；{@link Collection}、{@link Iterator} 和 {@link BaseStream}
+ * 逐个元素写出，缓冲超过阈值就刷到输出流，请求头 Accept 包含 application/x-ndjson 时按行输出 NDJSON。
+ * 其他实现了 {@link Iterable} 的类型可能是带属性的领域对象，仍按普通对象序列化。
+ */
+final class JsonResponseWriter {
+
+    static final String NDJSON = "application/x-ndjson";
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private JsonResponseWriter() {
+    }
+
+    // 返回写出的字节数
+    static long write(Object result, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Iterator<?> elements = toIterator(result);
+        if (elements == null) {
+            resp.setContentType("application/json;charset=UTF-8");
+            try (JSONWriter writer = JSONWriter.ofUTF8()) {
+                writer.writeAny(result);
+                int size = writer.size();
+                resp.setContentLength(size);
+                writer.flushTo(resp.getOutputStream());
+                return size;
+            }
+        }
+
+        try {
+            String accept = req.getHeader("Accept");
+            if (accept != null && accept.contains(NDJSON)) {
+                resp.setContentType(NDJSON + ";charset=UTF-8");
+                return writeLines(elements, resp.getOutputStream());
+            } else {
+                resp.setContentType("application/json;charset=UTF-8");
+                return writeArray(elements, resp.getOutputStream());
+            }
+        } finally {
+            if (result instanceof BaseStream<?, ?> stream) {
+                stream.close();
+            }
+        }
+    }
+
+    private static long writeArray(Iterator<?> elements, OutputStream out) throws IOException {
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            long written = 0;
+            writer.startArray();
+            boolean first = true;
+            while (elements.hasNext()) {
+                if (!first) {
+                    writer.writeComma();
+                }
+                first = false;
+                writer.writeAny(elements.next());
+                if (writer.size() >= FLUSH_THRESHOLD) {
+                    written += flush(writer, out);
+                }
+            }
+            writer.endArray();
+            return written + flush(writer, out);
+        }
+    }
+
+    private static long writeLines(Iterator<?> elements, OutputStream out) throws IOException {
+        try (JSONWriter writer = JSONWriter.ofUTF8()) {
+            long written = 0;
+            while (elements.hasNext()) {
+                writer.writeAny(elements.next());
+                writer.writeRaw('\n');
+                if (writer.size() >= FLUSH_THRESHOLD) {
+                    written += flush(writer, out);
+                }
+            }
+            return written + flush(writer, out);
+        }
+    }
+
+    private static int flush(JSONWriter writer, OutputStream out) throws IOException {
+        int size = writer.size();
+        writer.flushTo(out);
+        return size;
+    }
+
+    // 集合也按流式输出，避免大集合一次性占满缓冲区
+    private static Iterator<?> toIterator(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.iterator();
+        }
+        if (result instanceof Iterator<?> iterator) {
+            return iterator;
+        }
+        if (result instanceof BaseStream<?, ?> stream) {
+            return stream.iterator();
+        }
+        return null;
+    }
+}
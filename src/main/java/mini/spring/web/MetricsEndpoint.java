@@ -0,0 +1,157 @@
+package mini.spring.web;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * 以 Prometheus 文本格式输出各路由的 {@link RouteMetrics}。
+ * 直方图对外只暴露 2 的幂微秒的边界；分位数按两次抓取之间的增量计算，抓取之间互斥，但不影响记录方。
+ */
+final class MetricsEndpoint {
+
+    /** 指标的访问路径，默认 /metrics */
+    static final String PATH_PROPERTY = "mini.spring.metrics.path";
+    /**
+     * 默认关闭，设为 true 时才暴露指标接口；指标本身始终记录。该路径不经过任何 {@link HandlerInterceptor}，
+     * 会公开全部路由和流量，只应在不对外的端口或网络中开启
+     */
+    static final String ENABLED_PROPERTY = "mini.spring.metrics.enabled";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int MAX_LE_EXPONENT = 26;
+    private static final String[] LE_LABELS = new String[MAX_LE_EXPONENT + 1];
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    static {
+        for (int i = 0; i <= MAX_LE_EXPONENT; i++) {
+            LE_LABELS[i] = BigDecimal.valueOf(1L << i).movePointLeft(6).toPlainString();
+        }
+    }
+
+    private MetricsEndpoint() {
+    }
+
+    static synchronized long write(Collection<RouteMetrics> routes, AccessLog accessLog, HttpServletResponse resp) throws IOException {
+        StringBuilder out = new StringBuilder(4096);
+        long[][] snapshots = new long[routes.size()][];
+        RouteMetrics[] metrics = routes.toArray(new RouteMetrics[0]);
+        for (int i = 0; i < metrics.length; i++) {
+            snapshots[i] = metrics[i].snapshot();
+        }
+
+        header(out, "mini_spring_http_requests_total", "counter", "Requests handled per route.");
+        for (RouteMetrics route : metrics) {
+            sample(out, "mini_spring_http_requests_total", route, null, route.getRequests());
+        }
+        header(out, "mini_spring_http_errors_total", "counter", "Requests that ended with a 5xx status or an exception.");
+        for (RouteMetrics route : metrics) {
+            sample(out, "mini_spring_http_errors_total", route, null, route.getErrors());
+        }
+        header(out, "mini_spring_http_response_bytes_total", "counter", "Response body bytes written.");
+        for (RouteMetrics route : metrics) {
+            sample(out, "mini_spring_http_response_bytes_total", route, null, route.getBytesWritten());
+        }
+
+        header(out, "mini_spring_http_request_duration_seconds", "histogram", "Request latency.");
+        for (int i = 0; i < metrics.length; i++) {
+            writeHistogram(out, metrics[i], snapshots[i]);
+        }
+
+        header(out, "mini_spring_http_request_duration_interval_seconds", "gauge",
+                "Latency quantiles over the interval since the previous scrape.");
+        for (int i = 0; i < metrics.length; i++) {
+            long[] delta = metrics[i].intervalSnapshot(snapshots[i]);
+            long total = 0;
+            for (long count : delta) {
+                total += count;
+            }
+            if (total == 0) {
+                continue;
+            }
+            for (double quantile : QUANTILES) {
+                sample(out, "mini_spring_http_request_duration_interval_seconds", metrics[i],
+                        "quantile=\"" + quantile + "\"", seconds(quantile(delta, total, quantile)));
+            }
+        }
+
+        if (accessLog != null) {
+            header(out, "mini_spring_access_log_dropped_total", "counter", "Access log records dropped because the buffer was full.");
+            out.append("mini_spring_access_log_dropped_total ").append(accessLog.getDropped()).append('\n');
+        }
+
+        byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+        resp.setContentType(CONTENT_TYPE);
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+        return body.length;
+    }
+
+    private static void writeHistogram(StringBuilder out, RouteMetrics route, long[] counts) {
+        long cumulative = 0;
+        int bucket = 0;
+        for (int exponent = 0; exponent <= MAX_LE_EXPONENT; exponent++) {
+            long bound = 1L << exponent;
+            while (bucket < counts.length && RouteMetrics.bucketUpperBound(bucket) <= bound) {
+                cumulative += counts[bucket++];
+            }
+            sample(out, "mini_spring_http_request_duration_seconds_bucket", route, "le=\"" + LE_LABELS[exponent] + "\"", cumulative);
+        }
+        long count = 0;
+        for (long value : counts) {
+            count += value;
+        }
+        sample(out, "mini_spring_http_request_duration_seconds_bucket", route, "le=\"+Inf\"", count);
+        sample(out, "mini_spring_http_request_duration_seconds_sum", route, null, route.getLatencyNanos() / 1e9);
+        sample(out, "mini_spring_http_request_duration_seconds_count", route, null, count);
+    }
+
+    // 取落入分位点的桶的上界，单位微秒
+    private static long quantile(long[] counts, long total, double quantile) {
+        long rank = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return RouteMetrics.bucketUpperBound(i);
+            }
+        }
+        return RouteMetrics.bucketUpperBound(counts.length - 1);
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1e6;
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, RouteMetrics route, String extraLabel, Object value) {
+        out.append(name).append("{route=\"");
+        escape(out, route.getRoute());
+        out.append("\",method=\"");
+        escape(out, route.getMethods());
+        out.append('"');
+        if (extraLabel != null) {
+            out.append(',').append(extraLabel);
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package mini.spring.web;
+
+/**
+ * 自定义请求参数的类型转换。实现类声明为 {@link mini.spring.IoC.Component} 即可生效，
+ * 优先于内置的转换规则。
+ */
+public interface ParameterConverter {
+
+    boolean supports(Class<?> type);
+
+    Object convert(String value, Class<?> type);
+}
@@ -0,0 +1,119 @@
+package mini.spring.web;
+
+/**
+ * 拦截器使用的路径模式，语法与 {@link RequestMapping} 一致：* 匹配一段，{var} 匹配一段，** 匹配任意多段。
+ * 注册路由时拿它和路由模式比较：能确定匹配或不匹配的在启动时就定下来，
+ * 路由里含变量或通配符而无法确定的结果为 {@link Match#MAYBE}，留到请求时按实际路径判断。
+ */
+final class PathPattern {
+
+    enum Match {
+        NO, MAYBE, YES
+    }
+
+    private final String pattern;
+    private final String[] segments;
+
+    PathPattern(String pattern) {
+        this.pattern = pattern;
+        this.segments = split(pattern);
+    }
+
+    Match matchRoute(String routePattern) {
+        return match(0, split(routePattern), 0);
+    }
+
+    // 请求路径按下标逐段比较，不切分字符串
+    boolean matches(String requestPath) {
+        return matchPath(0, requestPath, requestPath.startsWith("/") ? 1 : 0);
+    }
+
+    // position 为当前段的起点，超过路径长度表示所有段都已消费
+    private boolean matchPath(int pi, String path, int position) {
+        boolean consumed = position > path.length();
+        if (pi == segments.length) {
+            return consumed;
+        }
+        String segment = segments[pi];
+        if (segment.equals("**")) {
+            if (matchPath(pi + 1, path, position)) {
+                return true;
+            }
+            return !consumed && matchPath(pi, path, segmentEnd(path, position) + 1);
+        }
+        if (consumed) {
+            return false;
+        }
+        int end = segmentEnd(path, position);
+        if (!isVariable(segment)) {
+            int length = end - position;
+            if (segment.length() != length || !path.regionMatches(position, segment, 0, length)) {
+                return false;
+            }
+        }
+        return matchPath(pi + 1, path, end + 1);
+    }
+
+    private static int segmentEnd(String path, int position) {
+        int end = path.indexOf('/', position);
+        return end < 0 ? path.length() : end;
+    }
+
+    private Match match(int pi, String[] route, int ri) {
+        if (pi == segments.length) {
+            if (ri == route.length) {
+                return Match.YES;
+            }
+            for (int i = ri; i < route.length; i++) {
+                if (!route[i].equals("**")) {
+                    return Match.NO;
+                }
+            }
+            // 路由剩下的 ** 可能匹配空路径，也可能不是
+            return Match.MAYBE;
+        }
+        String segment = segments[pi];
+        if (segment.equals("**")) {
+            Match skip = match(pi + 1, route, ri);
+            if (skip == Match.YES || ri == route.length) {
+                return skip;
+            }
+            return best(skip, match(pi, route, ri + 1));
+        }
+        if (ri == route.length) {
+            return Match.NO;
+        }
+        String routeSegment = route[ri];
+        if (routeSegment.equals("**")) {
+            return best(uncertain(match(pi, route, ri + 1)), uncertain(match(pi + 1, route, ri)));
+        }
+        if (isVariable(segment)) {
+            return match(pi + 1, route, ri + 1);
+        }
+        if (isVariable(routeSegment)) {
+            return uncertain(match(pi + 1, route, ri + 1));
+        }
+        return segment.equals(routeSegment) ? match(pi + 1, route, ri + 1) : Match.NO;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"));
+    }
+
+    private static Match best(Match a, Match b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static Match uncertain(Match match) {
+        return match == Match.YES ? Match.MAYBE : match;
+    }
+
+    private static String[] split(String path) {
+        return (path.startsWith("/") ? path.substring(1) : path).split("/", -1);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
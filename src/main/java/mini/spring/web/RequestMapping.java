@@ -9,4 +9,7 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequestMapping {
     String value() default "";
+
+    // 为空时匹配所有 HTTP 方法
+    String[] method() default {};
 }
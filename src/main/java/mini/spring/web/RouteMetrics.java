@@ -0,0 +1,111 @@
+package mini.spring.web;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单条路由的请求计数、错误计数、响应字节数和耗时直方图，全部基于 {@link LongAdder}，记录时不加锁。
+ * 直方图按微秒分桶：每个 2 的幂区间再等分为 {@link #SUB_BUCKETS} 个子桶，相对误差约 12%。
+ * {@link #intervalSnapshot()} 返回与上一次快照之间的增量，用于按抓取间隔计算分位数。
+ */
+final class RouteMetrics {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 最大到 2^36 微秒（约 19 小时），更大的都落在最后一个桶
+    private static final int MAX_EXPONENT = 35;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final String route;
+    private final String methods;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    // 上一次快照的桶计数，只由抓取方访问
+    private long[] previous = new long[BUCKETS];
+
+    RouteMetrics(String route, String methods) {
+        this.route = route;
+        this.methods = methods;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    String getRoute() {
+        return route;
+    }
+
+    String getMethods() {
+        return methods;
+    }
+
+    void record(int status, long nanos, long bytes) {
+        requests.increment();
+        if (status >= 500) {
+            errors.increment();
+        }
+        if (bytes > 0) {
+            bytesWritten.add(bytes);
+        }
+        latencyNanos.add(nanos);
+        buckets[bucketIndex(nanos / 1000)].increment();
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    long getLatencyNanos() {
+        return latencyNanos.sum();
+    }
+
+    long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    // 当前快照减去上一次快照，调用方需保证串行
+    long[] intervalSnapshot(long[] current) {
+        long[] delta = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            delta[i] = current[i] - previous[i];
+        }
+        previous = current;
+        return delta;
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // 桶的上界（不含），单位微秒
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int octave = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << (octave - 1);
+    }
+}
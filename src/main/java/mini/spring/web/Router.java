@@ -0,0 +1,273 @@
+package mini.spring.web;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按路径段组织的路由树。不含变量和通配符的路径直接查哈希表；
+ * 其余路径逐段匹配，优先级为 静态段 > {var} > * > **，匹配失败时回溯。
+ * 匹配过程只记录变量在请求路径中的起止位置，不切分字符串。
+ */
+class Router {
+
+    private final Map<String, Route> staticRoutes = new ConcurrentHashMap<>();
+    private final Node root = new Node();
+
+    synchronized void register(String pattern, String[] methods, WebHandler handler) {
+        List<String> variableNames = new ArrayList<>();
+        Route route;
+        if (!isDynamic(pattern)) {
+            route = staticRoutes.computeIfAbsent(pattern, key -> new Route());
+        } else {
+            Node node = root;
+            int position = 1;
+            while (true) {
+                int end = segmentEnd(pattern, position);
+                String segment = pattern.substring(position, end);
+                node = node.child(segment, variableNames, end == pattern.length());
+                if (end == pattern.length()) {
+                    break;
+                }
+                position = end + 1;
+            }
+            if (node.route == null) {
+                node.route = new Route();
+            }
+            route = node.route;
+        }
+        // 只是变量名不同的模式共用一个 Route，变量名跟着各自的处理器走
+        route.add(pattern, methods, new Binding(handler, variableNames.toArray(String[]::new)));
+    }
+
+    // 路径匹配但方法不匹配时 match.isPathMatched() 为 true，返回 null
+    WebHandler find(String method, String path, RouteMatch match) {
+        match.reset(path);
+        Route staticRoute = staticRoutes.get(path);
+        if (staticRoute != null) {
+            Binding binding = staticRoute.get(method);
+            if (binding != null) {
+                match.route = staticRoute;
+                match.variableNames = binding.variableNames;
+                return binding.handler;
+            }
+        }
+        // 静态路由不支持该方法时，仍然允许动态路由接手
+        Route route = path.startsWith("/") ? root.match(path, 1, match) : null;
+        Binding binding = route != null ? route.get(method) : null;
+        if (binding == null && staticRoute != null) {
+            match.count = 0;
+            route = staticRoute;
+        }
+        match.route = route;
+        if (binding == null) {
+            return null;
+        }
+        match.variableNames = binding.variableNames;
+        return binding.handler;
+    }
+
+    private static boolean isDynamic(String pattern) {
+        return pattern.indexOf('{') >= 0 || pattern.indexOf('*') >= 0;
+    }
+
+    private static int segmentEnd(String path, int position) {
+        int end = path.indexOf('/', position);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static final class Node {
+        private volatile String[] segments = new String[0];
+        private volatile Node[] staticChildren = new Node[0];
+        private volatile Node variableChild;
+        private volatile Node wildcardChild;
+        private volatile Route catchAll;
+        private volatile Route route;
+
+        private Node child(String segment, List<String> variableNames, boolean last) {
+            if (segment.equals("**")) {
+                if (!last) {
+                    throw new RuntimeException("** 只能出现在路径末尾");
+                }
+                variableNames.add("**");
+                if (catchAll == null) {
+                    catchAll = new Route();
+                }
+                // ** 的处理器挂在 catchAll 上，返回一个不会被匹配到的占位节点
+                Node holder = new Node();
+                holder.route = catchAll;
+                return holder;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                variableNames.add(segment.substring(1, segment.length() - 1));
+                if (variableChild == null) {
+                    variableChild = new Node();
+                }
+                return variableChild;
+            }
+            if (segment.equals("*")) {
+                variableNames.add("*");
+                if (wildcardChild == null) {
+                    wildcardChild = new Node();
+                }
+                return wildcardChild;
+            }
+            String[] currentSegments = segments;
+            for (int i = 0; i < currentSegments.length; i++) {
+                if (currentSegments[i].equals(segment)) {
+                    return staticChildren[i];
+                }
+            }
+            Node child = new Node();
+            Node[] children = Arrays.copyOf(staticChildren, currentSegments.length + 1);
+            children[currentSegments.length] = child;
+            String[] newSegments = Arrays.copyOf(currentSegments, currentSegments.length + 1);
+            newSegments[currentSegments.length] = segment;
+            staticChildren = children;
+            segments = newSegments;
+            return child;
+        }
+
+        private Route match(String path, int position, RouteMatch match) {
+            int end = segmentEnd(path, position);
+            boolean last = end == path.length();
+
+            String[] currentSegments = segments;
+            Node[] children = staticChildren;
+            int length = end - position;
+            for (int i = 0; i < currentSegments.length; i++) {
+                String segment = currentSegments[i];
+                if (segment.length() == length && path.regionMatches(position, segment, 0, length)) {
+                    Route route = children[i].descend(path, end, last, match);
+                    if (route != null) {
+                        return route;
+                    }
+                    break;
+                }
+            }
+
+            if (length > 0) {
+                Route route = capture(variableChild, path, position, end, last, match);
+                if (route == null) {
+                    route = capture(wildcardChild, path, position, end, last, match);
+                }
+                if (route != null) {
+                    return route;
+                }
+            }
+
+            Route catchAllRoute = catchAll;
+            if (catchAllRoute != null) {
+                match.capture(position, path.length());
+                return catchAllRoute;
+            }
+            return null;
+        }
+
+        private static Route capture(Node child, String path, int position, int end, boolean last, RouteMatch match) {
+            if (child == null) {
+                return null;
+            }
+            int mark = match.count;
+            match.capture(position, end);
+            Route route = child.descend(path, end, last, match);
+            if (route == null) {
+                match.count = mark;
+            }
+            return route;
+        }
+
+        private Route descend(String path, int end, boolean last, RouteMatch match) {
+            if (last) {
+                if (route != null) {
+                    return route;
+                }
+                // /a/** 同样匹配 /a
+                if (catchAll != null) {
+                    match.capture(end, end);
+                    return catchAll;
+                }
+                return null;
+            }
+            return match(path, end + 1, match);
+        }
+    }
+
+    private static final class Route {
+        private final Map<String, Binding> handlers = new ConcurrentHashMap<>();
+        private volatile Binding anyMethodHandler;
+
+        private void add(String pattern, String[] methods, Binding binding) {
+            if (methods.length == 0) {
+                if (anyMethodHandler != null) {
+                    throw new RuntimeException("controller 定义重复" + pattern);
+                }
+                anyMethodHandler = binding;
+                return;
+            }
+            for (String method : methods) {
+                if (handlers.put(method.toUpperCase(), binding) != null) {
+                    throw new RuntimeException("controller 定义重复" + method + " " + pattern);
+                }
+            }
+        }
+
+        private Binding get(String method) {
+            Binding binding = handlers.isEmpty() ? null : handlers.get(method);
+            return binding != null ? binding : anyMethodHandler;
+        }
+    }
+
+    private record Binding(WebHandler handler, String[] variableNames) {
+    }
+
+    /**
+     * 一次路由匹配的结果，可以在同一线程的多次请求间复用。
+     */
+    static final class RouteMatch {
+        private String path;
+        private Route route;
+        private String[] variableNames;
+        private int count;
+        private int[] offsets = new int[8];
+
+        private void reset(String path) {
+            this.path = path;
+            this.route = null;
+            this.variableNames = null;
+            this.count = 0;
+        }
+
+        private void capture(int start, int end) {
+            if (offsets.length < (count + 1) * 2) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count * 2] = start;
+            offsets[count * 2 + 1] = end;
+            count++;
+        }
+
+        boolean isPathMatched() {
+            return route != null;
+        }
+
+        String getVariable(String name) {
+            String[] names = variableNames;
+            if (names == null) {
+                return null;
+            }
+            for (int i = 0; i < count && i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    String value = path.substring(offsets[i * 2], offsets[i * 2 + 1]);
+                    return value.indexOf('%') < 0 ? value
+                            : URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+                }
+            }
+            return null;
+        }
+    }
+}
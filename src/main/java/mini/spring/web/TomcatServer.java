@@ -5,7 +5,11 @@ import mini.spring.IoC.Autowired;
 import mini.spring.IoC.Component;
 import mini.spring.IoC.PostConstruct;
 import org.apache.catalina.Context;
+import org.apache.catalina.Executor;
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardThreadExecutor;
 import org.apache.catalina.startup.Tomcat;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
@@ -15,11 +19,25 @@ import java.util.logging.LogManager;
 @Component
 public class TomcatServer {
 
+    /** 请求执行模式：platform（默认，平台线程池）或 virtual（每个请求一个虚拟线程） */
+    public static final String THREADS_PROPERTY = "mini.spring.server.threads";
+    /** platform 模式下线程池的最大 / 最小空闲线程数和等待队列长度 */
+    public static final String MAX_THREADS_PROPERTY = "mini.spring.server.max-threads";
+    public static final String MIN_SPARE_THREADS_PROPERTY = "mini.spring.server.min-spare-threads";
+    public static final String MAX_QUEUE_SIZE_PROPERTY = "mini.spring.server.max-queue-size";
+    /** virtual 模式下同时处理的请求数上限 */
+    public static final String MAX_CONCURRENCY_PROPERTY = "mini.spring.server.max-concurrency";
+    /** 连接器接受的最大连接数和 backlog，两种模式通用 */
+    public static final String MAX_CONNECTIONS_PROPERTY = "mini.spring.server.max-connections";
+    public static final String ACCEPT_COUNT_PROPERTY = "mini.spring.server.accept-count";
+
     @Autowired
     private DispatcherServlet dispatcherServlet;
 
     @PostConstruct
     public void start() throws LifecycleException {
+        // reset 把 JUL 根级别设为 INFO，低于 INFO 的记录在 JUL 里就被丢弃，不会经过桥接；
+        // Tomcat 只在启动、关闭和出错时输出 INFO 以上的日志，桥接不在请求路径上
         LogManager.getLogManager().reset();
         SLF4JBridgeHandler.removeHandlersForRootLogger();
         SLF4JBridgeHandler.install();
@@ -27,14 +45,47 @@ public class TomcatServer {
         int port = 8080;
         Tomcat tomcat = new Tomcat();
         tomcat.setPort(port);
-        tomcat.getConnector();
+        Connector connector = tomcat.getConnector();
+        configureExecutor(tomcat, connector);
 
         String contextPath = "";
         String docBase = new File(".").getAbsolutePath();
         Context context = tomcat.addContext(contextPath, docBase);
 
-        tomcat.addServlet(contextPath, "dispatcherServlet", dispatcherServlet);
+        Wrapper wrapper = tomcat.addServlet(contextPath, "dispatcherServlet", dispatcherServlet);
+        // 处理器返回 CompletionStage 时走 Servlet 异步
+        wrapper.setAsyncSupported(true);
         context.addServletMappingDecoded("/*", "dispatcherServlet");
         tomcat.start();
     }
+
+    private void configureExecutor(Tomcat tomcat, Connector connector) {
+        String mode = System.getProperty(THREADS_PROPERTY, "platform");
+        Executor executor;
+        int defaultMaxConnections;
+        switch (mode) {
+            case "virtual" -> {
+                int maxConcurrency = Integer.getInteger(MAX_CONCURRENCY_PROPERTY, 20000);
+                executor = new VirtualThreadExecutor("tomcat-virtual", maxConcurrency);
+                defaultMaxConnections = maxConcurrency;
+            }
+            case "platform" -> {
+                StandardThreadExecutor pool = new StandardThreadExecutor();
+                pool.setName("tomcat-platform");
+                pool.setNamePrefix("tomcat-exec-");
+                pool.setMaxThreads(Integer.getInteger(MAX_THREADS_PROPERTY, 200));
+                pool.setMinSpareThreads(Integer.getInteger(MIN_SPARE_THREADS_PROPERTY, 10));
+                pool.setMaxQueueSize(Integer.getInteger(MAX_QUEUE_SIZE_PROPERTY, Integer.MAX_VALUE));
+                executor = pool;
+                defaultMaxConnections = 8192;
+            }
+            default -> throw new IllegalArgumentException("不支持的执行模式 " + mode + "，可选 platform 或 virtual");
+        }
+        // 交给 Service 管理生命周期，随 Tomcat 一起启停
+        tomcat.getService().addExecutor(executor);
+        connector.getProtocolHandler().setExecutor(executor);
+        connector.setProperty("maxConnections",
+                String.valueOf(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, defaultMaxConnections)));
+        connector.setProperty("acceptCount", String.valueOf(Integer.getInteger(ACCEPT_COUNT_PROPERTY, 100)));
+    }
 }
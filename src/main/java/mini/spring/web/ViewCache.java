@@ -0,0 +1,210 @@
+package mini.spring.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link ModelAndView} 视图的缓存。视图第一次被请求时从 classpath 读出并预先编码（可压缩的再预先 gzip），
+ * 之后只做一次缓冲区写出；带 ETag / Last-Modified，条件请求直接返回 304。
+ * 超过 {@link #MAX_CACHED_SIZE} 的文件不进内存，走 Tomcat sendfile 或 {@link FileChannel#transferTo}；
+ * 这类视图每次请求都重新读取文件大小和修改时间，文件变化后长度和 ETag 跟着更新。
+ */
+class ViewCache {
+
+    private static final int MAX_CACHED_SIZE = 1024 * 1024;
+    private static final int MIN_GZIP_SIZE = 1024;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ClassLoader classLoader;
+    private final Map<String, View> views = new ConcurrentHashMap<>();
+
+    ViewCache(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    // 返回响应体字节数，304 为 0
+    long render(String viewName, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        View view = views.get(viewName);
+        if (view == null) {
+            view = views.computeIfAbsent(viewName, this::load);
+        }
+        if (view.file != null) {
+            view = refresh(viewName, view);
+        }
+
+        // 压缩后的内容是另一个表示，ETag 也要区分开
+        boolean gzip = false;
+        if (view.gzipped != null) {
+            String acceptEncoding = req.getHeader("Accept-Encoding");
+            gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            resp.setHeader("Vary", "Accept-Encoding");
+        }
+        String etag = gzip ? view.gzipEtag : view.etag;
+
+        resp.setContentType("text/html;charset=UTF-8");
+        resp.setHeader("ETag", etag);
+        if (view.lastModified > 0) {
+            resp.setDateHeader("Last-Modified", view.lastModified);
+        }
+        if (isNotModified(etag, view.lastModified, req)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return 0;
+        }
+
+        if (view.file != null) {
+            sendFile(view, req, resp);
+            return view.length;
+        }
+        byte[] body = view.bytes;
+        if (gzip) {
+            resp.setHeader("Content-Encoding", "gzip");
+            body = view.gzipped;
+        }
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+        return body.length;
+    }
+
+    // 条件请求只对 GET / HEAD 返回 304
+    private boolean isNotModified(String etag, long lastModified, HttpServletRequest req) {
+        String method = req.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return false;
+        }
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*");
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = req.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP 日期只精确到秒
+        return ifModifiedSince >= 0 && lastModified > 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private void sendFile(View view, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentLengthLong(view.length);
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute(SENDFILE_FILENAME, view.file.toAbsolutePath().toString());
+            req.setAttribute(SENDFILE_START, 0L);
+            req.setAttribute(SENDFILE_END, view.length);
+            return;
+        }
+        OutputStream out = resp.getOutputStream();
+        try (FileChannel channel = FileChannel.open(view.file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < view.length) {
+                long transferred = channel.transferTo(position, view.length - position, target);
+                if (transferred == 0 && position >= channel.size()) {
+                    throw new IOException("视图文件在发送过程中被截断 " + view.file);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private View load(String viewName) {
+        URL resource = classLoader.getResource(viewName);
+        try {
+            if (resource == null) {
+                throw new FileNotFoundException("找不到视图 " + viewName);
+            }
+            Path file = "file".equals(resource.getProtocol()) ? Paths.get(resource.toURI()) : null;
+            if (file != null && Files.size(file) > MAX_CACHED_SIZE) {
+                return fileView(file, Files.readAttributes(file, BasicFileAttributes.class));
+            }
+
+            URLConnection connection = resource.openConnection();
+            byte[] bytes;
+            try (InputStream inputStream = connection.getInputStream()) {
+                bytes = inputStream.readAllBytes();
+            }
+            long lastModified = connection.getLastModified();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return new View(bytes, gzip(bytes), null, bytes.length, etag(bytes.length, crc.getValue()), lastModified);
+        } catch (IOException | URISyntaxException e) {
+            throw new IllegalStateException("无法加载视图 " + viewName, e);
+        }
+    }
+
+    // 大小或修改时间变了就换成新的 View，stat 一次的开销远小于发送文件本身
+    private View refresh(String viewName, View view) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(view.file, BasicFileAttributes.class);
+        if (attributes.size() == view.length && attributes.lastModifiedTime().toMillis() == view.lastModified) {
+            return view;
+        }
+        View refreshed = fileView(view.file, attributes);
+        views.replace(viewName, view, refreshed);
+        return refreshed;
+    }
+
+    private static View fileView(Path file, BasicFileAttributes attributes) {
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        return new View(null, null, file, length, etag(length, lastModified), lastModified);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        if (bytes.length < MIN_GZIP_SIZE) {
+            return null;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(bytes);
+        }
+        return buffer.size() < bytes.length ? buffer.toByteArray() : null;
+    }
+
+    private static String etag(long length, long version) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(version) + "\"";
+    }
+
+    private static final class View {
+        private final byte[] bytes;
+        private final byte[] gzipped;
+        private final Path file;
+        private final long length;
+        private final String etag;
+        private final String gzipEtag;
+        private final long lastModified;
+
+        private View(byte[] bytes, byte[] gzipped, Path file, long length, String etag, long lastModified) {
+            this.bytes = bytes;
+            this.gzipped = gzipped;
+            this.file = file;
+            this.length = length;
+            this.etag = etag;
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package mini.spring.web;
+
+import org.apache.catalina.core.StandardVirtualThreadExecutor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 在 Tomcat 自带的 {@link StandardVirtualThreadExecutor} 上加并发上限，每个请求一个虚拟线程。
+ * 同时在处理的请求数由 maxConcurrency 限制，超出的虚拟线程在信号量上挂起，不占用平台线程。
+ * 连接器只通过 {@link #execute(Runnable)} 提交请求，其余 ExecutorService 方法沿用父类实现，不受上限约束。
+ */
+class VirtualThreadExecutor extends StandardVirtualThreadExecutor {
+
+    private final Semaphore permits;
+
+    VirtualThreadExecutor(String name, int maxConcurrency) {
+        setName(name);
+        setNamePrefix(name + "-");
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+}
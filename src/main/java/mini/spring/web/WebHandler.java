@@ -1,27 +1,147 @@
 package mini.spring.web;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
+/**
+ * 一条路由的处理链：注册时就定好适用的拦截器、参数解析器和结果渲染方式，请求时按顺序执行，
+ * 没有适用拦截器的路由不做任何拦截器相关的工作。
+ */
 public class WebHandler {
+    private final String path;
     private final Object controllerBean;
     private final Method method;
     private final ResultType resultType;
+    private final boolean async;
+    private final ArgumentResolver[] argumentResolvers;
+    private final HandlerInterceptor[] interceptors;
+    private final ResultRenderer renderer;
+    private final RouteMetrics metrics;
 
     public WebHandler(final Object controllerBean, final Method method) {
+        this(controllerBean, method, List.of());
+    }
+
+    public WebHandler(final Object controllerBean, final Method method, final List<ParameterConverter> converters) {
+        this(null, controllerBean, method, converters, new HandlerInterceptor[0],
+                new ViewCache(method.getDeclaringClass().getClassLoader()), new RouteMetrics("", ""));
+    }
+
+    WebHandler(String path, Object controllerBean, Method method, List<ParameterConverter> converters,
+               HandlerInterceptor[] interceptors, ViewCache viewCache, RouteMetrics metrics) {
+        this.path = path;
+        this.metrics = metrics;
         this.controllerBean = controllerBean;
         this.method = method;
+        this.async = CompletionStage.class.isAssignableFrom(method.getReturnType());
         this.resultType = determineResultType(controllerBean, method);
+        Parameter[] parameters = method.getParameters();
+        this.argumentResolvers = new ArgumentResolver[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            this.argumentResolvers[i] = ArgumentResolvers.create(parameters[i], converters);
+        }
+        this.interceptors = interceptors;
+        this.renderer = switch (resultType) {
+            case JSON -> JsonResponseWriter::write;
+            case HTML -> (result, req, resp) -> {
+                String text = result.toString();
+                resp.setContentType("text/html;charset=UTF-8");
+                resp.getWriter().write(text);
+                return utf8Length(text);
+            };
+            case LOCAL -> (result, req, resp) -> viewCache.render(((ModelAndView) result).getView(), req, resp);
+        };
     }
 
     private ResultType determineResultType(Object controllerBean, Method method) {
         if (method.isAnnotationPresent(RequestBody.class)) {
             return ResultType.JSON;
-        } else if (method.getReturnType().equals(ModelAndView.class)) {
+        } else if (resultClass(method).equals(ModelAndView.class)) {
             return ResultType.LOCAL;
         }
         return ResultType.HTML;
     }
 
+    // CompletionStage<T> 按 T 决定渲染方式
+    private Class<?> resultClass(Method method) {
+        if (!async) {
+            return method.getReturnType();
+        }
+        Type returnType = method.getGenericReturnType();
+        if (returnType instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> resultClass) {
+            return resultClass;
+        }
+        return Object.class;
+    }
+
+    boolean applyPreHandle(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        for (HandlerInterceptor interceptor : interceptors) {
+            if (!interceptor.preHandle(req, resp, this)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Object invoke(HttpServletRequest req, HttpServletResponse resp, Router.RouteMatch match) throws Exception {
+        Object[] args = resolveArguments(req, resp, match);
+        try {
+            return method.invoke(controllerBean, args);
+        } catch (InvocationTargetException e) {
+            // 处理器消费惰性解析的请求体时抛出的格式错误，按 400 处理
+            if (e.getTargetException() instanceof BadRequestException badRequest) {
+                throw badRequest;
+            }
+            throw e;
+        }
+    }
+
+    // postHandle 之后渲染，返回写出的响应体字节数
+    long handleResult(HttpServletRequest req, HttpServletResponse resp, Object result) throws Exception {
+        for (HandlerInterceptor interceptor : interceptors) {
+            interceptor.postHandle(req, resp, this, result);
+        }
+        return renderer.render(result, req, resp);
+    }
+
+    void triggerAfterCompletion(HttpServletRequest req, HttpServletResponse resp, Exception ex) {
+        for (HandlerInterceptor interceptor : interceptors) {
+            try {
+                interceptor.afterCompletion(req, resp, this, ex);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    Object[] resolveArguments(HttpServletRequest req, HttpServletResponse resp, Router.RouteMatch match) throws Exception {
+        ArgumentResolver[] resolvers = this.argumentResolvers;
+        Object[] args = new Object[resolvers.length];
+        for (int i = 0; i < resolvers.length; i++) {
+            args[i] = resolvers[i].resolve(req, resp, match);
+        }
+        return args;
+    }
+
+    // 注册时的路由模式，直接构造的处理器为 null
+    public String getPath() {
+        return path;
+    }
+
+    RouteMetrics getMetrics() {
+        return metrics;
+    }
+
     public Object getControllerBean() {
         return controllerBean;
     }
@@ -34,8 +154,32 @@ public class WebHandler {
         return resultType;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
     enum ResultType {
         JSON, HTML, LOCAL
     }
 
+    // 按 UTF-8 编码后的字节数，不实际编码
+    static long utf8Length(String text) {
+        long length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                // 代理对两个 char 共 4 字节，其余 3 字节
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    @FunctionalInterface
+    private interface ResultRenderer {
+        long render(Object result, HttpServletRequest req, HttpServletResponse resp) throws IOException;
+    }
+
 }
\ No newline at end of file
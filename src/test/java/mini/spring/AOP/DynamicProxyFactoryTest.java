@@ -0,0 +1,176 @@
+package mini.spring.AOP;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.FixedValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamicProxyFactoryTest {
+
+    static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+    static final AtomicInteger INITIALIZED = new AtomicInteger();
+
+    public static class Counter {
+        private final List<String> calls = initialize();
+        private String name = "counter";
+
+        public Counter() {
+            CONSTRUCTED.incrementAndGet();
+        }
+
+        private static List<String> initialize() {
+            INITIALIZED.incrementAndGet();
+            return new ArrayList<>();
+        }
+
+        public String advised() {
+            calls.add("advised");
+            return name;
+        }
+
+        public String plain() {
+            calls.add("plain");
+            return name;
+        }
+
+        public int callCount() {
+            return calls.size();
+        }
+    }
+
+    public static class NoDefaultConstructor {
+        private final String value;
+
+        public NoDefaultConstructor(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        CONSTRUCTED.set(0);
+        INITIALIZED.set(0);
+    }
+
+    @Test
+    void subclassProxyDoesNotRunConstructorsOrFieldInitializers() throws Exception {
+        Counter target = new Counter();
+        Counter proxy = DynamicProxyFactory.createProxy(target, List.of(Counter.class.getMethod("advised")),
+                invocation -> "[" + invocation.proceed() + "]");
+
+        assertEquals(1, CONSTRUCTED.get());
+        assertEquals(1, INITIALIZED.get());
+        assertEquals("[counter]", proxy.advised());
+        assertEquals("counter", proxy.plain());
+        // 未增强的方法同样落在目标对象上
+        assertEquals(2, target.callCount());
+        assertEquals(2, proxy.callCount());
+    }
+
+    @Test
+    void proxiesClassesWithoutNoArgConstructor() {
+        NoDefaultConstructor target = new NoDefaultConstructor("value");
+        NoDefaultConstructor proxy = DynamicProxyFactory.createProxy(target, invocation -> invocation.proceed());
+
+        assertEquals("value", proxy.value());
+        assertSame(NoDefaultConstructor.class, DynamicProxyFactory.getOriginalClass(proxy));
+    }
+
+    @Test
+    void targetSourceProxyResolvesTargetOnEveryCall() {
+        AtomicInteger lookups = new AtomicInteger();
+        Counter target = new Counter();
+        Counter proxy = DynamicProxyFactory.createTargetSourceProxy(Counter.class, () -> {
+            lookups.incrementAndGet();
+            return target;
+        });
+
+        assertEquals(1, CONSTRUCTED.get());
+        assertEquals("counter", proxy.plain());
+        assertEquals("counter", proxy.advised());
+        assertEquals(2, lookups.get());
+        assertTrue(proxy instanceof DynamicProxyFactory.SubclassProxy);
+    }
+
+    @Test
+    void stalePregeneratedProxyFallsBackToRuntimeGeneration(@TempDir Path outputDirectory) throws Exception {
+        String targetName = "mini.spring.AOP.stale.Target";
+        // 构建期看到的目标类只有 first()，运行时的目标类多了 second()
+        DynamicType.Unloaded<?> before = new ByteBuddy().subclass(Object.class).name(targetName).modifiers(Visibility.PUBLIC)
+                .defineMethod("first", String.class, Visibility.PUBLIC).intercept(FixedValue.value("first"))
+                .make();
+        DynamicType.Unloaded<?> after = new ByteBuddy().subclass(Object.class).name(targetName).modifiers(Visibility.PUBLIC)
+                .defineMethod("first", String.class, Visibility.PUBLIC).intercept(FixedValue.value("first"))
+                .defineMethod("second", String.class, Visibility.PUBLIC).intercept(FixedValue.value("second"))
+                .make();
+
+        Class<?> buildTimeTarget = new DirectoryClassLoader(outputDirectory, targetName, before.getBytes()).loadClass(targetName);
+        DynamicProxyFactory.saveProxyClass(buildTimeTarget, null, outputDirectory.toFile());
+
+        Class<?> runtimeTarget = new DirectoryClassLoader(outputDirectory, targetName, after.getBytes()).loadClass(targetName);
+        Object target = runtimeTarget.getConstructor().newInstance();
+        Object proxy = DynamicProxyFactory.createSubclassProxy(target, invocation -> "[" + invocation.proceed() + "]");
+
+        assertEquals("[second]", runtimeTarget.getMethod("second").invoke(proxy));
+        assertNotEquals(pregeneratedProxyName(outputDirectory), proxy.getClass().getName());
+    }
+
+    private static String pregeneratedProxyName(Path outputDirectory) throws IOException {
+        try (var files = Files.walk(outputDirectory)) {
+            Path proxyFile = files.filter(file -> file.toString().contains("MiniSpringProxy")).findFirst().orElseThrow();
+            String relative = outputDirectory.relativize(proxyFile).toString();
+            return relative.substring(0, relative.length() - ".class".length()).replace(File.separatorChar, '.');
+        }
+    }
+
+    // 目标类由内存中的字节定义，其余类先从目录里找（模拟 target/classes 下预生成的代理类），再交给父加载器
+    private static final class DirectoryClassLoader extends ClassLoader {
+        private final Path directory;
+        private final String targetName;
+        private final byte[] targetBytes;
+
+        private DirectoryClassLoader(Path directory, String targetName, byte[] targetBytes) {
+            super(DynamicProxyFactoryTest.class.getClassLoader());
+            this.directory = directory;
+            this.targetName = targetName;
+            this.targetBytes = targetBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (name.equals(targetName)) {
+                return defineClass(name, targetBytes, 0, targetBytes.length);
+            }
+            Path file = directory.resolve(name.replace('.', File.separatorChar) + ".class");
+            if (!Files.exists(file)) {
+                throw new ClassNotFoundException(name);
+            }
+            try {
+                byte[] bytes = Files.readAllBytes(file);
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package mini.spring.IoC;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static mini.spring.IoC.ReflectionUtil.getFieldGenericType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeanDependencyGraphTest {
+
+    @Component
+    public static class A {
+        @Autowired
+        B b;
+    }
+
+    @Component
+    public static class B {
+        @Autowired
+        C c;
+    }
+
+    @Component
+    public static class C {
+        @Autowired
+        B b;
+    }
+
+    @Component
+    public static class D {
+        @Autowired
+        A a;
+        @Autowired
+        C c;
+    }
+
+    @Component
+    public static class Standalone {
+    }
+
+    @Component
+    public static class SelfReferencing {
+        @Autowired
+        SelfReferencing self;
+    }
+
+    @Component
+    public static class X {
+        @Autowired
+        Y y;
+    }
+
+    @Component
+    public static class Y {
+        @Autowired
+        Z z;
+    }
+
+    @Component
+    public static class Z {
+        @Autowired
+        X x;
+        @Autowired
+        Standalone standalone;
+    }
+
+    @Component
+    public static class W {
+        @Autowired
+        X x;
+    }
+
+    public interface Handler {
+    }
+
+    @Component
+    public static class FirstHandler implements Handler {
+    }
+
+    @Component
+    public static class SecondHandler implements Handler {
+        @Autowired
+        Dispatcher dispatcher;
+    }
+
+    @Component
+    public static class Dispatcher {
+        @Autowired
+        List<Handler> handlers;
+    }
+
+    private static final List<Class<?>> ALL = List.of(D.class, A.class, B.class, C.class, Standalone.class, SelfReferencing.class,
+            W.class, X.class, Y.class, Z.class, Dispatcher.class, FirstHandler.class, SecondHandler.class);
+
+    @Test
+    void groupsCyclesIntoStronglyConnectedComponents() {
+        BeanDependencyGraph graph = graph(ALL);
+
+        assertEquals(Set.of(Set.of("B", "C"), Set.of("X", "Y", "Z"), Set.of("Dispatcher", "SecondHandler")),
+                cycles(graph));
+        assertEquals(ALL.size(), graph.getComponents().stream().mapToInt(List::size).sum());
+        assertEquals(ALL.size() - 4, graph.getComponents().size());
+    }
+
+    @Test
+    void dependenciesComeBeforeDependents() {
+        List<BeanDefinition> definitions = definitions(ALL);
+        BeanDependencyGraph graph = new BeanDependencyGraph(definitions, candidateNames(definitions));
+
+        for (BeanDefinition definition : definitions) {
+            int dependent = graph.getComponentIndex(definition.getName());
+            for (String dependency : dependencyNames(definition, definitions)) {
+                int index = graph.getComponentIndex(dependency);
+                assertTrue(index <= dependent, dependency + " before " + definition.getName());
+            }
+        }
+    }
+
+    @Test
+    void componentDependenciesSkipTheComponentItself() {
+        BeanDependencyGraph graph = graph(ALL);
+
+        assertEquals(Set.of(), graph.getDependencies(index(graph, "B")));
+        assertEquals(Set.of(), graph.getDependencies(index(graph, "SelfReferencing")));
+        assertEquals(Set.of(index(graph, "B")), graph.getDependencies(index(graph, "A")));
+        // D 同时依赖 A 和 C，C 与 B 在同一个分量
+        assertEquals(Set.of(index(graph, "A"), index(graph, "C")), graph.getDependencies(index(graph, "D")));
+        assertEquals(Set.of(index(graph, "Standalone")), graph.getDependencies(index(graph, "Y")));
+        assertEquals(Set.of(index(graph, "X")), graph.getDependencies(index(graph, "W")));
+        // List<Handler> 依赖所有实现
+        assertEquals(Set.of(index(graph, "FirstHandler")), graph.getDependencies(index(graph, "Dispatcher")));
+        assertEquals(index(graph, "Dispatcher"), index(graph, "SecondHandler"));
+    }
+
+    @Test
+    void orderDoesNotDependOnDefinitionOrder() {
+        List<Class<?>> reversed = new ArrayList<>(ALL);
+        Collections.reverse(reversed);
+        BeanDependencyGraph forward = graph(ALL);
+        BeanDependencyGraph backward = graph(reversed);
+
+        assertEquals(cycles(forward), cycles(backward));
+        for (Class<?> type : ALL) {
+            for (Class<?> other : ALL) {
+                String name = type.getSimpleName();
+                String otherName = other.getSimpleName();
+                boolean sameForward = forward.getComponentIndex(name) == forward.getComponentIndex(otherName);
+                boolean sameBackward = backward.getComponentIndex(name) == backward.getComponentIndex(otherName);
+                assertEquals(sameForward, sameBackward, name + " / " + otherName);
+            }
+        }
+    }
+
+    @Test
+    void restoredGraphKeepsIndices() {
+        BeanDependencyGraph graph = graph(ALL);
+        List<Set<Integer>> dependencies = new ArrayList<>();
+        for (int i = 0; i < graph.getComponents().size(); i++) {
+            dependencies.add(graph.getDependencies(i));
+        }
+        BeanDependencyGraph restored = new BeanDependencyGraph(graph.getComponents(), dependencies);
+
+        for (Class<?> type : ALL) {
+            int index = graph.getComponentIndex(type.getSimpleName());
+            assertEquals(index, restored.getComponentIndex(type.getSimpleName()));
+            assertEquals(graph.getDependencies(index), restored.getDependencies(index));
+        }
+        assertNotEquals(restored.getComponentIndex("A"), restored.getComponentIndex("B"));
+    }
+
+    private static BeanDependencyGraph graph(List<Class<?>> types) {
+        List<BeanDefinition> definitions = definitions(types);
+        return new BeanDependencyGraph(definitions, candidateNames(definitions));
+    }
+
+    private static List<BeanDefinition> definitions(List<Class<?>> types) {
+        return types.stream().map(BeanDefinition::new).toList();
+    }
+
+    private static Function<Class<?>, List<String>> candidateNames(List<BeanDefinition> definitions) {
+        return type -> definitions.stream()
+                .filter(definition -> type.isAssignableFrom(definition.getBeanType()))
+                .map(BeanDefinition::getName)
+                .toList();
+    }
+
+    private static List<String> dependencyNames(BeanDefinition definition, List<BeanDefinition> definitions) {
+        List<String> names = new ArrayList<>();
+        for (Field field : definition.getAutowiredFields()) {
+            Class<?> type = List.class.isAssignableFrom(field.getType()) ? getFieldGenericType(field) : field.getType();
+            names.addAll(candidateNames(definitions).apply(type));
+        }
+        return names;
+    }
+
+    private static int index(BeanDependencyGraph graph, String beanName) {
+        return graph.getComponentIndex(beanName);
+    }
+
+    private static Set<Set<String>> cycles(BeanDependencyGraph graph) {
+        Set<Set<String>> cycles = new HashSet<>();
+        for (List<BeanDefinition> component : graph.getComponents()) {
+            if (component.size() > 1) {
+                Set<String> names = new HashSet<>();
+                component.forEach(definition -> names.add(definition.getName()));
+                cycles.add(names);
+            }
+        }
+        return cycles;
+    }
+}
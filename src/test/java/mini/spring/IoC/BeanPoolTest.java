@@ -0,0 +1,111 @@
+package mini.spring.IoC;
+
+import mini.spring.IoC.pool.PooledWorker;
+import mini.spring.IoC.pool.WorkerHolder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeanPoolTest {
+
+    @Test
+    void releasedInstanceIsReused() {
+        BeanPool pool = new BeanPool(2, null);
+        Object first = pool.acquire(Object::new);
+        pool.release(first);
+
+        assertSame(first, pool.acquire(Object::new));
+    }
+
+    @Test
+    void doubleReleaseIsIgnored() {
+        BeanPool pool = new BeanPool(2, null);
+        Object bean = pool.acquire(Object::new);
+        pool.release(bean);
+        pool.release(bean);
+
+        Object first = pool.acquire(Object::new);
+        Object second = pool.acquire(Object::new);
+        assertSame(bean, first);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void ownerReleaseIgnoresInstanceBorrowedByAnotherOwner() {
+        BeanPool pool = new BeanPool(2, null);
+        Object request = new Object();
+        Object bean = pool.acquire(Object::new, request);
+        pool.release(bean);
+        // 手动归还后被另一个请求借走，原请求结束时的归还不能生效
+        assertSame(bean, pool.acquire(Object::new, new Object()));
+        pool.release(bean, request);
+
+        assertNotSame(bean, pool.acquire(Object::new));
+    }
+
+    @Test
+    void requestEndReleasesDirectlyAcquiredInstances() throws Exception {
+        ApplicationContext context = new ApplicationContext("mini.spring.IoC.pool");
+        RequestScope.begin();
+        PooledWorker worker;
+        try {
+            worker = (PooledWorker) context.getBean("PooledWorker");
+            worker.add("request");
+        } finally {
+            RequestScope.end();
+        }
+
+        RequestScope.begin();
+        try {
+            PooledWorker reused = (PooledWorker) context.getBean("PooledWorker");
+            assertSame(worker, reused);
+            assertTrue(reused.getItems().isEmpty());
+        } finally {
+            RequestScope.end();
+        }
+    }
+
+    @Test
+    void manualReleaseCancelsRequestRelease() throws Exception {
+        ApplicationContext context = new ApplicationContext("mini.spring.IoC.pool");
+        RequestScope.begin();
+        try {
+            PooledWorker worker = (PooledWorker) context.getBean("PooledWorker");
+            context.releaseBean("PooledWorker", worker);
+            PooledWorker again = (PooledWorker) context.getBean("PooledWorker");
+            assertSame(worker, again);
+            context.releaseBean("PooledWorker", again);
+        } finally {
+            RequestScope.end();
+        }
+
+        PooledWorker first = (PooledWorker) context.getBean("PooledWorker");
+        PooledWorker second = (PooledWorker) context.getBean("PooledWorker");
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void dependencyOfSingletonIsNotReturnedToPool() throws Exception {
+        ApplicationContext context = new ApplicationContext("mini.spring.IoC.pool");
+        WorkerHolder holder;
+        RequestScope.begin();
+        try {
+            holder = context.getBean(WorkerHolder.class);
+            holder.getWorker().add("held");
+        } finally {
+            RequestScope.end();
+        }
+
+        RequestScope.begin();
+        try {
+            PooledWorker worker = (PooledWorker) context.getBean("PooledWorker");
+            assertNotSame(holder.getWorker(), worker);
+            assertEquals(1, holder.getWorker().getItems().size());
+        } finally {
+            RequestScope.end();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package mini.spring.IoC;
+
+import mini.spring.IoC.scan.AnnotatedService;
+import mini.spring.IoC.scan.Outer;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.modifier.Visibility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassPathScannerTest {
+
+    private static final String PACKAGE = "mini.spring.IoC.scan";
+    private static final Set<String> EXPECTED = Set.of(AnnotatedService.class.getName(), Outer.Inner.class.getName());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsClassLevelAnnotationsWithoutLoadingClasses() throws Exception {
+        try (TrackingClassLoader loader = new TrackingClassLoader(new URL[]{location(AnnotatedService.class), location(Component.class)})) {
+            List<String> found = new ClassPathScanner(Component.class).findCandidateClassNames(PACKAGE, loader);
+
+            assertEquals(EXPECTED, Set.copyOf(found));
+            assertEquals(EXPECTED.size(), found.size());
+            for (String className : found) {
+                assertFalse(loader.isLoaded(className), className);
+            }
+        }
+    }
+
+    @Test
+    void agreesWithReflection() throws Exception {
+        Path packageDirectory = Paths.get(location(AnnotatedService.class).toURI()).resolve(PACKAGE.replace('.', '/'));
+        Set<String> annotated = new HashSet<>();
+        try (Stream<Path> files = Files.list(packageDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                Class<?> type = Class.forName(PACKAGE + "." + fileName.substring(0, fileName.length() - ".class".length()));
+                if (type.isAnnotationPresent(Component.class)) {
+                    annotated.add(type.getName());
+                }
+            }
+        }
+
+        assertEquals(annotated, Set.copyOf(new ClassPathScanner(Component.class)
+                .findCandidateClassNames(PACKAGE, getClass().getClassLoader())));
+    }
+
+    @Test
+    void scansJars() throws Exception {
+        Path classes = Paths.get(location(AnnotatedService.class).toURI());
+        Path jar = directory.resolve("fixtures.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes.resolve(PACKAGE.replace('.', '/')))) {
+            // 目录条目也写进去，ClassLoader.getResources 按包路径查找时依赖它们
+            String prefix = "";
+            for (String part : PACKAGE.split("\\.")) {
+                prefix += part + "/";
+                out.putNextEntry(new JarEntry(prefix));
+                out.closeEntry();
+            }
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+                    Files.copy(file, out);
+                    out.closeEntry();
+                }
+            }
+        }
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            assertEquals(EXPECTED, Set.copyOf(new ClassPathScanner(Component.class).findCandidateClassNames(PACKAGE, loader)));
+        }
+    }
+
+    @Test
+    void growsItsBufferForLargeClassFiles() throws Exception {
+        AnnotationDescription component = AnnotationDescription.Builder.ofType(Component.class).build();
+        new ByteBuddy().subclass(Object.class).name("generated.Small").annotateType(component).make().saveIn(directory.toFile());
+        var large = new ByteBuddy().subclass(Object.class).name("generated.Large");
+        for (int i = 0; i < 1000; i++) {
+            large = large.defineField("a_rather_long_field_name_to_fill_the_pool_" + i, long.class, Visibility.PRIVATE);
+        }
+        large.annotateType(component).make().saveIn(directory.toFile());
+        new ByteBuddy().subclass(Object.class).name("generated.Plain").make().saveIn(directory.toFile());
+        assertTrue(Files.size(directory.resolve("generated/Large.class")) > 16 * 1024);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            assertEquals(Set.of("generated.Small", "generated.Large"),
+                    Set.copyOf(new ClassPathScanner(Component.class).findCandidateClassNames("generated", loader)));
+        }
+    }
+
+    @Test
+    void skipsNonClassFilesAndForeignMagic() throws Exception {
+        Path packageDirectory = Files.createDirectories(directory.resolve("broken"));
+        Files.writeString(packageDirectory.resolve("README.txt"), "not a class");
+        Files.write(packageDirectory.resolve("Fake.class"), new byte[]{1, 2, 3, 4, 0, 0, 0, 0, 0, 0});
+        Files.write(packageDirectory.resolve("package-info.class"), new byte[]{(byte) 0xCA, (byte) 0xFE});
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            assertEquals(List.of(), new ClassPathScanner(Component.class).findCandidateClassNames("broken", loader));
+        }
+    }
+
+    @Test
+    void reportsTruncatedClassFiles() throws Exception {
+        Path packageDirectory = Files.createDirectories(directory.resolve("broken"));
+        byte[] classFile = Files.readAllBytes(Paths.get(location(AnnotatedService.class).toURI())
+                .resolve(AnnotatedService.class.getName().replace('.', '/') + ".class"));
+        try (OutputStream out = Files.newOutputStream(packageDirectory.resolve("Truncated.class"))) {
+            out.write(classFile, 0, classFile.length / 2);
+        }
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            IOException e = assertThrows(IOException.class,
+                    () -> new ClassPathScanner(Component.class).findCandidateClassNames("broken", loader));
+            assertTrue(e.getMessage().contains("Truncated.class"), e.getMessage());
+        }
+    }
+
+    private static URL location(Class<?> type) throws URISyntaxException, IOException {
+        return type.getProtectionDomain().getCodeSource().getLocation().toURI().toURL();
+    }
+
+    private static final class TrackingClassLoader extends URLClassLoader {
+        private TrackingClassLoader(URL[] urls) {
+            super(urls, null);
+        }
+
+        private boolean isLoaded(String className) {
+            return findLoadedClass(className) != null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package mini.spring.IoC;
+
+import mini.spring.IoC.deadlock.Crossing;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CreationLockTest {
+
+    @Test
+    void crossingGetBeanCallsFailInsteadOfDeadlocking() throws Exception {
+        ApplicationContext context = new ApplicationContext("mini.spring.IoC.deadlock");
+        Crossing.context = context;
+        Crossing.bothCreating = new CountDownLatch(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> a = executor.submit(() -> context.getBean("CrossingA"));
+            Future<Object> b = executor.submit(() -> context.getBean("CrossingB"));
+
+            int failures = 0;
+            for (Future<Object> future : new Future[]{a, b}) {
+                try {
+                    assertNotNull(future.get(10, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    failures++;
+                    assertTrue(rootMessage(e).contains("死锁"), rootMessage(e));
+                }
+            }
+            // 至少一方放弃并释放自己的锁；两方同时发现环时都会放弃
+            assertTrue(failures >= 1);
+            assertNotNull(context.getBean("CrossingA"));
+            assertNotNull(context.getBean("CrossingB"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String rootMessage(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return String.valueOf(cause.getMessage());
+    }
+}
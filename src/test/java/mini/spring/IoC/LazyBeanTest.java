@@ -0,0 +1,53 @@
+package mini.spring.IoC;
+
+import mini.spring.IoC.lazy.HeavyService;
+import mini.spring.IoC.lazy.LazyConsumer;
+import mini.spring.IoC.lazy.RequestState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LazyBeanTest {
+
+    @BeforeEach
+    void reset() {
+        HeavyService.CONSTRUCTED.set(0);
+        RequestState.CONSTRUCTED.set(0);
+    }
+
+    @Test
+    void lazyBeanIsConstructedOnFirstCall() throws Exception {
+        ApplicationContext context = new ApplicationContext("mini.spring.IoC.lazy");
+        LazyConsumer consumer = context.getBean(LazyConsumer.class);
+
+        // 注入的代理壳不执行 HeavyService 的构造器
+        assertEquals(0, HeavyService.CONSTRUCTED.get());
+        assertEquals("heavy", consumer.getHeavyService().getName());
+        assertEquals(1, HeavyService.CONSTRUCTED.get());
+        assertEquals("heavy", consumer.getHeavyService().getName());
+        assertEquals(1, HeavyService.CONSTRUCTED.get());
+    }
+
+    @Test
+    void requestScopedBeanIsConstructedPerRequest() throws Exception {
+        ApplicationContext context = new ApplicationContext("mini.spring.IoC.lazy");
+        LazyConsumer consumer = context.getBean(LazyConsumer.class);
+        assertEquals(0, RequestState.CONSTRUCTED.get());
+
+        RequestScope.begin();
+        try {
+            assertEquals(1, consumer.getRequestState().hit());
+            assertEquals(2, consumer.getRequestState().hit());
+        } finally {
+            RequestScope.end();
+        }
+        RequestScope.begin();
+        try {
+            assertEquals(1, consumer.getRequestState().hit());
+        } finally {
+            RequestScope.end();
+        }
+        assertEquals(2, RequestState.CONSTRUCTED.get());
+    }
+}
@@ -0,0 +1,74 @@
+package mini.spring.IoC;
+
+import mini.spring.IoC.lazy.HeavyService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupSnapshotTest {
+
+    private static final String PACKAGE = "mini.spring.IoC.lazy";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recompiledBeanClassInvalidatesSnapshot() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        Path file = tempDir.resolve("startup.snapshot");
+        writeSnapshot(file);
+
+        StartupSnapshot snapshot = StartupSnapshot.load(file, PACKAGE, classLoader);
+        assertNotNull(snapshot);
+        assertEquals(3, snapshot.getBeanDefinitions().size());
+
+        Path classFile = Paths.get(HeavyService.class.getResource("HeavyService.class").toURI());
+        FileTime original = Files.getLastModifiedTime(classFile);
+        try {
+            Files.setLastModifiedTime(classFile, FileTime.fromMillis(original.toMillis() + 2000));
+            assertNull(StartupSnapshot.load(file, PACKAGE, classLoader));
+        } finally {
+            Files.setLastModifiedTime(classFile, original);
+        }
+        assertNotNull(StartupSnapshot.load(file, PACKAGE, classLoader));
+    }
+
+    @Test
+    void otherPackageInvalidatesSnapshot() throws Exception {
+        Path file = tempDir.resolve("startup.snapshot");
+        writeSnapshot(file);
+
+        assertNull(StartupSnapshot.load(file, "mini.spring.sub", getClass().getClassLoader()));
+    }
+
+    @Test
+    void snapshotIsNotUsedWithoutComponentIndex() {
+        assertTrue(StartupSnapshot.isSupported(getClass().getClassLoader()));
+        System.setProperty(CandidateComponentsIndex.IGNORE_INDEX_PROPERTY, "true");
+        try {
+            assertFalse(StartupSnapshot.isSupported(getClass().getClassLoader()));
+        } finally {
+            System.clearProperty(CandidateComponentsIndex.IGNORE_INDEX_PROPERTY);
+        }
+    }
+
+    private static void writeSnapshot(Path file) throws Exception {
+        System.setProperty(ApplicationContext.SNAPSHOT_PROPERTY, file.toString());
+        try {
+            new ApplicationContext(PACKAGE);
+        } finally {
+            System.clearProperty(ApplicationContext.SNAPSHOT_PROPERTY);
+        }
+        assertTrue(Files.isRegularFile(file));
+    }
+}
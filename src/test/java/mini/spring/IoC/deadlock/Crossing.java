@@ -0,0 +1,14 @@
+package mini.spring.IoC.deadlock;
+
+import mini.spring.IoC.ApplicationContext;
+
+import java.util.concurrent.CountDownLatch;
+
+// CrossingA 和 CrossingB 没有依赖关系，但各自的 @PostConstruct 都手动获取对方
+public final class Crossing {
+    public static volatile ApplicationContext context;
+    public static volatile CountDownLatch bothCreating = new CountDownLatch(2);
+
+    private Crossing() {
+    }
+}
@@ -0,0 +1,17 @@
+package mini.spring.IoC.deadlock;
+
+import mini.spring.IoC.Component;
+import mini.spring.IoC.Lazy;
+import mini.spring.IoC.PostConstruct;
+
+@Component
+@Lazy
+public class CrossingB {
+
+    @PostConstruct
+    public void init() throws InterruptedException {
+        Crossing.bothCreating.countDown();
+        Crossing.bothCreating.await();
+        Crossing.context.getBean("CrossingA");
+    }
+}
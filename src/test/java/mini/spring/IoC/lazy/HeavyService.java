@@ -0,0 +1,22 @@
+package mini.spring.IoC.lazy;
+
+import mini.spring.IoC.Component;
+import mini.spring.IoC.Lazy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Lazy
+public class HeavyService {
+    public static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+    private final String name = "heavy";
+
+    public HeavyService() {
+        CONSTRUCTED.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,23 @@
+package mini.spring.IoC.lazy;
+
+import mini.spring.IoC.Autowired;
+import mini.spring.IoC.Component;
+import mini.spring.IoC.Lazy;
+
+@Component
+public class LazyConsumer {
+    @Autowired
+    @Lazy
+    private HeavyService heavyService;
+
+    @Autowired
+    private RequestState requestState;
+
+    public HeavyService getHeavyService() {
+        return heavyService;
+    }
+
+    public RequestState getRequestState() {
+        return requestState;
+    }
+}
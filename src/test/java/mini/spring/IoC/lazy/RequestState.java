@@ -0,0 +1,22 @@
+package mini.spring.IoC.lazy;
+
+import mini.spring.IoC.Component;
+import mini.spring.IoC.Scope;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Scope(Scope.REQUEST)
+public class RequestState {
+    public static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+    private int hits;
+
+    public RequestState() {
+        CONSTRUCTED.incrementAndGet();
+    }
+
+    public int hit() {
+        return ++hits;
+    }
+}
@@ -0,0 +1,27 @@
+package mini.spring.IoC.pool;
+
+import mini.spring.IoC.Component;
+import mini.spring.IoC.PoolReset;
+import mini.spring.IoC.Scope;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Scope(value = Scope.PROTOTYPE, poolSize = 4)
+public class PooledWorker {
+    private final List<String> items = new ArrayList<>();
+
+    public void add(String item) {
+        items.add(item);
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+
+    @PoolReset
+    public void reset() {
+        items.clear();
+    }
+}
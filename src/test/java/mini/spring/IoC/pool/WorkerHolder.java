@@ -0,0 +1,16 @@
+package mini.spring.IoC.pool;
+
+import mini.spring.IoC.Autowired;
+import mini.spring.IoC.Component;
+import mini.spring.IoC.Lazy;
+
+@Component
+@Lazy
+public class WorkerHolder {
+    @Autowired
+    private PooledWorker worker;
+
+    public PooledWorker getWorker() {
+        return worker;
+    }
+}
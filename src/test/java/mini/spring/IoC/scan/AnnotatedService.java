@@ -0,0 +1,33 @@
+package mini.spring.IoC.scan;
+
+import mini.spring.IoC.Autowired;
+import mini.spring.IoC.Component;
+import mini.spring.IoC.PostConstruct;
+import mini.spring.IoC.Scope;
+
+import java.lang.annotation.ElementType;
+import java.util.function.Supplier;
+
+// @Component 排在其他类注解之后，常量池里有 long/double 常量、方法句柄和 invokedynamic
+@Tagged(values = {"a", "b"}, kind = ElementType.FIELD, type = String.class, weight = 1L << 40,
+        nested = @Component(name = "nested"), more = {@Component(name = "x"), @Component(name = "y")})
+@Deprecated
+@Component(name = "annotatedService")
+@Scope(Scope.PROTOTYPE)
+public class AnnotatedService {
+    public static final long BIG = 1L << 40;
+    public static final double RATIO = 0.75;
+
+    @Autowired
+    @Tagged(values = "field", weight = 7)
+    private Runnable dependency;
+
+    @PostConstruct
+    @Tagged(kind = ElementType.METHOD)
+    public void init() {
+    }
+
+    public Supplier<String> describe(String name) {
+        return () -> name + ":" + BIG + ":" + RATIO;
+    }
+}
@@ -0,0 +1,15 @@
+package mini.spring.IoC.scan;
+
+import mini.spring.IoC.Autowired;
+import mini.spring.IoC.Component;
+
+// 常量池里出现 Component，嵌套注解里也有 @Component，但类本身没有标注
+@Tagged(nested = @Component(name = "inner"), more = @Component)
+public class NotAComponent {
+    @Autowired
+    private AnnotatedService service;
+
+    public boolean isComponent(Class<?> type) {
+        return type.isAnnotationPresent(Component.class);
+    }
+}
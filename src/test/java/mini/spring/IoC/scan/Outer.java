@@ -0,0 +1,13 @@
+package mini.spring.IoC.scan;
+
+import mini.spring.IoC.Component;
+
+public class Outer {
+
+    @Component
+    public static class Inner {
+    }
+
+    public static class Plain {
+    }
+}
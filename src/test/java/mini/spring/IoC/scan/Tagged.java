@@ -0,0 +1,23 @@
+package mini.spring.IoC.scan;
+
+import mini.spring.IoC.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+// 各种元素值类型都有的注解，用来检验扫描器跳读 element_value
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Tagged {
+    String[] values() default {};
+
+    ElementType kind() default ElementType.TYPE;
+
+    Class<?> type() default Object.class;
+
+    long weight() default 0;
+
+    Component nested() default @Component;
+
+    Component[] more() default {};
+}
@@ -0,0 +1,133 @@
+package mini.spring.web;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogTest {
+
+    private static final long MAX_SIZE = 64L * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLog log = new AccessLog(file, 5, false, MAX_SIZE, 1);
+        for (int i = 0; i < 10; i++) {
+            log.record("GET", "/r", true, 200, 0, i);
+        }
+        assertEquals(2, log.getDropped());
+        log.close();
+    }
+
+    @Test
+    void wrapsAroundTheRingInOrder() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLog log = new AccessLog(file, 4, true, MAX_SIZE, 1);
+        log.start();
+        for (int i = 0; i < 1000; i++) {
+            log.record("GET", "/items/{id}", true, 200, 2_000_000, i);
+        }
+        log.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(" ");
+            assertEquals("GET", fields[2]);
+            assertEquals("/items/{id}", fields[3]);
+            assertEquals("200", fields[4]);
+            assertEquals("2000us", fields[5]);
+            assertEquals(String.valueOf(i), fields[6]);
+        }
+        assertEquals(0, log.getDropped());
+    }
+
+    @Test
+    void dropPolicyCountsAndReportsDroppedRecords() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLog log = new AccessLog(file, 4, false, MAX_SIZE, 1);
+        // 后台线程还没启动，缓冲区满后的记录全部丢弃
+        for (int i = 0; i < 7; i++) {
+            log.record("POST", "/orders", true, 201, 0, i);
+        }
+        assertEquals(3, log.getDropped());
+
+        log.start();
+        log.close();
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(lines.get(i).endsWith(" POST /orders 201 0us " + i), lines.get(i));
+        }
+        assertEquals("# dropped 3", lines.get(4));
+    }
+
+    @Test
+    void blockPolicyWaitsForSpace() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLog log = new AccessLog(file, 2, true, MAX_SIZE, 1);
+        log.record("GET", "/a", true, 200, 0, 0);
+        log.record("GET", "/a", true, 200, 0, 1);
+
+        CountDownLatch published = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            log.record("GET", "/a", true, 200, 0, 2);
+            published.countDown();
+        });
+        producer.start();
+        assertFalse(published.await(200, TimeUnit.MILLISECONDS));
+
+        log.start();
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        log.close();
+        assertEquals(0, log.getDropped());
+        assertEquals(3, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void unmatchedPathsAndUnknownMethodsAreWrittenVerbatim() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLog log = new AccessLog(file, 8, true, MAX_SIZE, 1);
+        log.start();
+        log.record("PROPFIND", "/raw/path", false, 404, 0, 13);
+        log.record(null, null, false, 500, 0, 0);
+        log.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.get(0).endsWith(" PROPFIND /raw/path 404 0us 13"), lines.get(0));
+        assertTrue(lines.get(1).endsWith(" - - 500 0us 0"), lines.get(1));
+    }
+
+    @Test
+    void rotatesWhenTheFileExceedsItsLimit() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLog log = new AccessLog(file, 4, true, 200, 2);
+        log.start();
+        for (int i = 0; i < 50; i++) {
+            log.record("GET", "/r", true, 200, 0, i);
+        }
+        log.close();
+
+        assertTrue(Files.exists(directory.resolve("access.log.1")));
+        assertTrue(Files.exists(directory.resolve("access.log.2")));
+        assertFalse(Files.exists(directory.resolve("access.log.3")));
+        // 最新的记录在当前文件末尾
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.get(lines.size() - 1).endsWith(" 49"));
+        for (String name : List.of("access.log", "access.log.1", "access.log.2")) {
+            assertTrue(Files.size(directory.resolve(name)) <= 200 + 512, name);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package mini.spring.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import mini.spring.IoC.RequestScope;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArgumentResolversTest {
+
+    enum Color {
+        RED, GREEN
+    }
+
+    record Point(int x, int y) {
+    }
+
+    record Money(long cents) {
+    }
+
+    @SuppressWarnings("unused")
+    static class Fixture {
+        public void primitives(@Param("i") int i, @Param("l") long l, @Param("d") double d,
+                               @Param("b") boolean b, @Param("c") char c) {
+        }
+
+        public void wrappers(@Param("i") Integer i, @Param("s") String s, @Param("n") BigDecimal n, @Param("u") UUID u) {
+        }
+
+        public void enumValue(@Param("color") Color color) {
+        }
+
+        public void dates(@Param("day") LocalDate day, @Param("at") Instant at, @Param("date") Date date) {
+        }
+
+        public void collections(@Param("ids") List<Integer> ids, @Param("tags") Set<String> tags, @Param("scores") int[] scores) {
+        }
+
+        public void pathVariable(@PathVariable("id") long id, @PathVariable("name") String name) {
+        }
+
+        public void servlet(HttpServletRequest req, HttpServletResponse resp) {
+        }
+
+        public void unsupported(@Param("point") Point point) {
+        }
+
+        public void money(@Param("amount") Money amount) {
+        }
+
+        public void body(@RequestBody Point point) {
+        }
+
+        public void records(@RequestBody Stream<Point> points) {
+        }
+
+        public void recordIterator(@RequestBody Iterator<Point> points) {
+        }
+    }
+
+    @Test
+    void missingPrimitivesUseDefaults() throws Exception {
+        Object[] args = resolve("primitives", Map.of());
+        assertArrayEquals(new Object[]{0, 0L, 0.0d, false, '\0'}, args);
+    }
+
+    @Test
+    void convertsPrimitives() throws Exception {
+        Object[] args = resolve("primitives", Map.of("i", values("7"), "l", values("-3"), "d", values("1.5"),
+                "b", values("true"), "c", values("x")));
+        assertArrayEquals(new Object[]{7, -3L, 1.5d, true, 'x'}, args);
+    }
+
+    @Test
+    void missingOrEmptyReferencesAreNullButStringsKeepEmpty() throws Exception {
+        Object[] args = resolve("wrappers", Map.of("i", values(""), "s", values("")));
+        assertArrayEquals(new Object[]{null, "", null, null}, args);
+    }
+
+    @Test
+    void convertsWrappersAndValueTypes() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        Object[] args = resolve("wrappers", Map.of("i", values("42"), "s", values("text"),
+                "n", values("12.50"), "u", values(uuid.toString())));
+        assertArrayEquals(new Object[]{42, "text", new BigDecimal("12.50"), uuid}, args);
+    }
+
+    @Test
+    void convertsEnums() throws Exception {
+        assertEquals(Color.GREEN, resolve("enumValue", Map.of("color", values("GREEN")))[0]);
+    }
+
+    @Test
+    void unknownEnumConstantIsBadRequest() {
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> resolve("enumValue", Map.of("color", values("BLUE"))));
+        assertTrue(e.getMessage().contains("color"));
+    }
+
+    @Test
+    void convertsIsoDates() throws Exception {
+        Object[] args = resolve("dates", Map.of("day", values("2024-02-29"),
+                "at", values("2024-02-29T10:15:30Z"), "date", values("2024-02-29T10:15:30Z")));
+        Instant instant = Instant.parse("2024-02-29T10:15:30Z");
+        assertArrayEquals(new Object[]{LocalDate.of(2024, 2, 29), instant, Date.from(instant)}, args);
+    }
+
+    @Test
+    void malformedDateIsBadRequest() {
+        assertThrows(BadRequestException.class, () -> resolve("dates", Map.of("day", values("29/02/2024"))));
+    }
+
+    @Test
+    void convertsRepeatedAndCommaSeparatedValues() throws Exception {
+        Object[] args = resolve("collections", Map.of("ids", values("1", "2", "3"),
+                "tags", values("a,b,a"), "scores", values("5,6")));
+        assertEquals(List.of(1, 2, 3), args[0]);
+        assertEquals(List.of("a", "b"), List.copyOf((Set<?>) args[1]));
+        assertArrayEquals(new int[]{5, 6}, (int[]) args[2]);
+    }
+
+    @Test
+    void missingCollectionsAreEmpty() throws Exception {
+        Object[] args = resolve("collections", Map.of());
+        assertEquals(List.of(), args[0]);
+        assertEquals(Set.of(), args[1]);
+        assertArrayEquals(new int[0], (int[]) args[2]);
+    }
+
+    @Test
+    void badCollectionElementIsBadRequest() {
+        assertThrows(BadRequestException.class, () -> resolve("collections", Map.of("ids", values("1", "x"))));
+    }
+
+    @Test
+    void malformedNumberIsBadRequest() {
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> resolve("primitives", Map.of("i", values("seven"))));
+        assertTrue(e.getMessage().contains("i"));
+        assertTrue(e.getCause() instanceof NumberFormatException);
+    }
+
+    @Test
+    void resolvesAndDecodesPathVariables() throws Exception {
+        WebHandler handler = handler("pathVariable", List.of());
+        Router router = new Router();
+        router.register("/users/{id}/{name}", new String[]{"GET"}, handler);
+        Router.RouteMatch match = new Router.RouteMatch();
+        assertSame(handler, router.find("GET", "/users/42/a%20b", match));
+
+        Object[] args = handler.resolveArguments(FakeRequests.request(Map.of()), FakeRequests.response(), match);
+        assertArrayEquals(new Object[]{42L, "a b"}, args);
+    }
+
+    @Test
+    void malformedPathVariableIsBadRequest() throws Exception {
+        WebHandler handler = handler("pathVariable", List.of());
+        Router router = new Router();
+        router.register("/users/{id}/{name}", new String[]{"GET"}, handler);
+        Router.RouteMatch match = new Router.RouteMatch();
+        router.find("GET", "/users/abc/x", match);
+
+        assertThrows(BadRequestException.class,
+                () -> handler.resolveArguments(FakeRequests.request(Map.of()), FakeRequests.response(), match));
+    }
+
+    @Test
+    void passesServletObjects() throws Exception {
+        HttpServletRequest req = FakeRequests.request(Map.of());
+        HttpServletResponse resp = FakeRequests.response();
+        Object[] args = handler("servlet", List.of()).resolveArguments(req, resp, new Router.RouteMatch());
+        assertSame(req, args[0]);
+        assertSame(resp, args[1]);
+    }
+
+    @Test
+    void unsupportedTypesResolveToNull() throws Exception {
+        assertNull(resolve("unsupported", Map.of("point", values("1,2")))[0]);
+    }
+
+    @Test
+    void customConverterTakesPrecedence() throws Exception {
+        ParameterConverter converter = new ParameterConverter() {
+            @Override
+            public boolean supports(Class<?> type) {
+                return type == Money.class;
+            }
+
+            @Override
+            public Object convert(String value, Class<?> type) {
+                return new Money(new BigDecimal(value).movePointRight(2).longValueExact());
+            }
+        };
+        Object[] args = handler("money", List.of(converter))
+                .resolveArguments(FakeRequests.request(Map.of("amount", values("3.25"))), FakeRequests.response(), new Router.RouteMatch());
+        assertEquals(new Money(325), args[0]);
+    }
+
+    @Test
+    void parsesJsonBody() throws Exception {
+        Object[] args = resolveBody("body", "{\"x\":1,\"y\":2}");
+        assertEquals(new Point(1, 2), args[0]);
+    }
+
+    @Test
+    void emptyBodyIsNull() throws Exception {
+        assertNull(resolveBody("body", null)[0]);
+    }
+
+    @Test
+    void malformedJsonBodyIsBadRequest() {
+        assertThrows(BadRequestException.class, () -> resolveBody("body", "{\"x\":"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void parsesNdjsonLazily() throws Exception {
+        Stream<Point> points = (Stream<Point>) resolveBody("records", "{\"x\":1,\"y\":2}\n\n{\"x\":3,\"y\":4}\n")[0];
+        try (points) {
+            assertEquals(List.of(new Point(1, 2), new Point(3, 4)), points.toList());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void malformedNdjsonLineIsBadRequestWhenConsumed() throws Exception {
+        Iterator<Point> points = (Iterator<Point>) resolveBody("recordIterator", "{\"x\":1,\"y\":2}\nnot json\n")[0];
+        assertEquals(new Point(1, 2), points.next());
+        assertThrows(BadRequestException.class, points::next);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ndjsonReaderIsClosedWhenTheRequestEnds() throws Exception {
+        HttpServletRequest req = FakeRequests.request(Map.of(), "{\"x\":1,\"y\":2}\n{\"x\":3,\"y\":4}\n");
+        FakeRequests.BodyInputStream body = (FakeRequests.BodyInputStream) req.getInputStream();
+        RequestScope.begin();
+        try {
+            Iterator<Point> points = (Iterator<Point>) handler("recordIterator", List.of())
+                    .resolveArguments(req, FakeRequests.response(), new Router.RouteMatch())[0];
+            // 处理器只消费了一部分
+            assertEquals(new Point(1, 2), points.next());
+            assertFalse(body.isClosed());
+        } finally {
+            RequestScope.end();
+        }
+        assertTrue(body.isClosed());
+    }
+
+    private static Object[] resolve(String methodName, Map<String, String[]> parameters) throws Exception {
+        return handler(methodName, List.of())
+                .resolveArguments(FakeRequests.request(parameters), FakeRequests.response(), new Router.RouteMatch());
+    }
+
+    private static Object[] resolveBody(String methodName, String body) throws Exception {
+        return handler(methodName, List.of())
+                .resolveArguments(FakeRequests.request(Map.of(), body), FakeRequests.response(), new Router.RouteMatch());
+    }
+
+    private static WebHandler handler(String methodName, List<ParameterConverter> converters) {
+        for (Method method : Fixture.class.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return new WebHandler(new Fixture(), method, converters);
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+
+    private static String[] values(String... values) {
+        return values;
+    }
+}
@@ -0,0 +1,130 @@
+package mini.spring.web;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 测试用的请求和响应，只实现参数解析用到的方法，其余方法返回默认值。
+ */
+final class FakeRequests {
+
+    private FakeRequests() {
+    }
+
+    static HttpServletRequest request(Map<String, String[]> parameters) {
+        return request(parameters, null);
+    }
+
+    static HttpServletRequest request(Map<String, String[]> parameters, String body) {
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        BodyInputStream in = new BodyInputStream(bytes);
+        return (HttpServletRequest) Proxy.newProxyInstance(FakeRequests.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getParameter" -> {
+                        String[] values = parameters.get((String) args[0]);
+                        yield values == null ? null : values[0];
+                    }
+                    case "getParameterValues" -> parameters.get((String) args[0]);
+                    case "getContentLengthLong" -> (long) bytes.length;
+                    case "getInputStream" -> in;
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    static HttpServletResponse response() {
+        return (HttpServletResponse) Proxy.newProxyInstance(FakeRequests.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    // 写出的响应体收集到 body 里
+    static HttpServletResponse response(ByteArrayOutputStream body) {
+        ServletOutputStream out = new BodyOutputStream(body);
+        return (HttpServletResponse) Proxy.newProxyInstance(FakeRequests.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> method.getName().equals("getOutputStream")
+                        ? out : defaultValue(method.getReturnType()));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    static final class BodyInputStream extends ServletInputStream {
+        private final ByteArrayInputStream in;
+        private boolean closed;
+
+        private BodyInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class BodyOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream out;
+
+        private BodyOutputStream(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            out.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
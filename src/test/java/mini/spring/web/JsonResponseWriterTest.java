@@ -0,0 +1,63 @@
+package mini.spring.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonResponseWriterTest {
+
+    // 实现了 Iterable 的领域对象，属性不能因为按元素流式输出而丢失
+    public static class Page implements Iterable<String> {
+        private final List<String> items = List.of("a", "b");
+
+        public int getTotal() {
+            return 42;
+        }
+
+        public List<String> getItems() {
+            return items;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return items.iterator();
+        }
+    }
+
+    @Test
+    void collectionsIteratorsAndStreamsAreWrittenAsArrays() throws Exception {
+        assertEquals("[1,2,3]", write(List.of(1, 2, 3)));
+        assertEquals("[\"x\",\"y\"]", write(List.of("x", "y").iterator()));
+        AtomicBoolean closed = new AtomicBoolean();
+        assertEquals("[4,5]", write(Stream.of(4, 5).onClose(() -> closed.set(true))));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void otherIterablesAreSerializedAsObjects() throws Exception {
+        assertEquals("{\"items\":[\"a\",\"b\"],\"total\":42}", write(new Page()));
+    }
+
+    @Test
+    void reportsBytesWritten() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        long written = JsonResponseWriter.write(List.of("ü"), FakeRequests.request(Map.of()), FakeRequests.response(body));
+        assertEquals(body.size(), written);
+        assertEquals("[\"ü\"]", body.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String write(Object result) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        JsonResponseWriter.write(result, FakeRequests.request(Map.of()), FakeRequests.response(body));
+        return body.toString(StandardCharsets.UTF_8);
+    }
+}
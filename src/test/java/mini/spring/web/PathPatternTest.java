@@ -0,0 +1,108 @@
+package mini.spring.web;
+
+import org.junit.jupiter.api.Test;
+
+import static mini.spring.web.PathPattern.Match.MAYBE;
+import static mini.spring.web.PathPattern.Match.NO;
+import static mini.spring.web.PathPattern.Match.YES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathPatternTest {
+
+    @Test
+    void staticPatternAgainstRoutes() {
+        PathPattern pattern = new PathPattern("/api/admin");
+
+        assertEquals(YES, pattern.matchRoute("/api/admin"));
+        assertEquals(NO, pattern.matchRoute("/api/users"));
+        assertEquals(NO, pattern.matchRoute("/api/admin/users"));
+        assertEquals(NO, pattern.matchRoute("/api"));
+        // 路由的变量和通配符可能取到 admin，也可能取不到
+        assertEquals(MAYBE, pattern.matchRoute("/api/{id}"));
+        assertEquals(MAYBE, pattern.matchRoute("/api/*"));
+        assertEquals(MAYBE, pattern.matchRoute("/api/**"));
+        assertEquals(MAYBE, pattern.matchRoute("/**"));
+    }
+
+    @Test
+    void singleSegmentWildcardsAgainstRoutes() {
+        PathPattern star = new PathPattern("/api/*");
+        PathPattern variable = new PathPattern("/api/{name}");
+
+        assertEquals(YES, star.matchRoute("/api/users"));
+        assertEquals(YES, star.matchRoute("/api/{id}"));
+        assertEquals(YES, variable.matchRoute("/api/*"));
+        assertEquals(NO, star.matchRoute("/api/users/1"));
+        assertEquals(NO, star.matchRoute("/api"));
+        // ** 可能正好是一段，也可能是零段或多段
+        assertEquals(MAYBE, star.matchRoute("/api/**"));
+    }
+
+    @Test
+    void catchAllAgainstRoutes() {
+        PathPattern pattern = new PathPattern("/api/**");
+
+        assertEquals(YES, pattern.matchRoute("/api"));
+        assertEquals(YES, pattern.matchRoute("/api/users"));
+        assertEquals(YES, pattern.matchRoute("/api/{id}/orders/*"));
+        assertEquals(YES, pattern.matchRoute("/api/**"));
+        assertEquals(NO, pattern.matchRoute("/web/api"));
+        assertEquals(MAYBE, pattern.matchRoute("/{section}/users"));
+        assertEquals(YES, new PathPattern("/**").matchRoute("/anything/{at}/all"));
+    }
+
+    @Test
+    void catchAllInTheMiddleAgainstRoutes() {
+        PathPattern pattern = new PathPattern("/a/**/z");
+
+        assertEquals(YES, pattern.matchRoute("/a/z"));
+        assertEquals(YES, pattern.matchRoute("/a/b/c/z"));
+        assertEquals(YES, pattern.matchRoute("/a/{x}/z"));
+        assertEquals(NO, pattern.matchRoute("/a/b"));
+        assertEquals(NO, pattern.matchRoute("/b/z"));
+        assertEquals(MAYBE, pattern.matchRoute("/a/{x}"));
+        assertEquals(MAYBE, pattern.matchRoute("/a/**"));
+    }
+
+    @Test
+    void trailingRouteCatchAllIsUncertain() {
+        // 路由 /api/** 匹配 /api 本身，但也匹配更深的路径
+        assertEquals(MAYBE, new PathPattern("/api").matchRoute("/api/**"));
+        assertEquals(NO, new PathPattern("/api").matchRoute("/api/users/**"));
+    }
+
+    @Test
+    void matchesRequestPaths() {
+        PathPattern exact = new PathPattern("/api/users");
+        PathPattern star = new PathPattern("/api/*/orders");
+        PathPattern catchAll = new PathPattern("/api/**");
+        PathPattern middle = new PathPattern("/a/**/z");
+
+        assertTrue(exact.matches("/api/users"));
+        assertFalse(exact.matches("/api/users/"));
+        assertFalse(exact.matches("/api/user"));
+        assertFalse(exact.matches("/api/usersx"));
+        assertTrue(star.matches("/api/7/orders"));
+        assertFalse(star.matches("/api/7/8/orders"));
+        assertTrue(catchAll.matches("/api"));
+        assertTrue(catchAll.matches("/api/"));
+        assertTrue(catchAll.matches("/api/a/b/c"));
+        assertFalse(catchAll.matches("/apix"));
+        assertFalse(catchAll.matches("/"));
+        assertTrue(middle.matches("/a/z"));
+        assertTrue(middle.matches("/a/b/c/z"));
+        assertFalse(middle.matches("/a/b/c"));
+        assertFalse(middle.matches("/a/z/b"));
+    }
+
+    @Test
+    void rootPatterns() {
+        assertTrue(new PathPattern("/").matches("/"));
+        assertFalse(new PathPattern("/").matches("/a"));
+        assertEquals(YES, new PathPattern("/").matchRoute("/"));
+        assertTrue(new PathPattern("/**").matches("/"));
+        assertTrue(new PathPattern("/**").matches("/a/b"));
+    }
+}
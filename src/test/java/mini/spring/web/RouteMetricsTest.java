@@ -0,0 +1,160 @@
+package mini.spring.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteMetricsTest {
+
+    private static final String QUANTILE_METRIC = "mini_spring_http_request_duration_interval_seconds";
+
+    @Test
+    void bucketsAreContiguousAndIncreasing() {
+        assertEquals(1, RouteMetrics.bucketUpperBound(0));
+        for (int i = 1; i < RouteMetrics.BUCKETS; i++) {
+            long lower = RouteMetrics.bucketUpperBound(i - 1);
+            long upper = RouteMetrics.bucketUpperBound(i);
+            assertTrue(upper > lower, "bucket " + i);
+            // 下界所在的桶就是它自己，上界落在下一个桶
+            assertEquals(i, RouteMetrics.bucketIndex(lower), "lower bound of bucket " + i);
+            assertEquals(i, RouteMetrics.bucketIndex(upper - 1), "last value of bucket " + i);
+        }
+        assertEquals(1L << 36, RouteMetrics.bucketUpperBound(RouteMetrics.BUCKETS - 1));
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucket() {
+        for (long micros = 0; micros < 200_000; micros++) {
+            assertInside(micros);
+        }
+        for (int exponent = 17; exponent < 36; exponent++) {
+            long power = 1L << exponent;
+            assertInside(power - 1);
+            assertInside(power);
+            assertInside(power + power / 3);
+        }
+    }
+
+    @Test
+    void relativeBucketWidthStaysWithinOneEighth() {
+        for (int i = RouteMetrics.SUB_BUCKETS; i < RouteMetrics.BUCKETS; i++) {
+            long lower = RouteMetrics.bucketUpperBound(i - 1);
+            long width = RouteMetrics.bucketUpperBound(i) - lower;
+            assertTrue(width * RouteMetrics.SUB_BUCKETS <= lower, "bucket " + i);
+        }
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        assertEquals(0, RouteMetrics.bucketIndex(-5));
+        assertEquals(RouteMetrics.BUCKETS - 1, RouteMetrics.bucketIndex(1L << 36));
+        assertEquals(RouteMetrics.BUCKETS - 1, RouteMetrics.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void recordsCountersErrorsAndBytes() {
+        RouteMetrics metrics = new RouteMetrics("/r", "GET");
+        metrics.record(200, 1_500, 100);
+        metrics.record(404, 2_500, 0);
+        metrics.record(500, 3_000, 20);
+        metrics.record(503, 4_000, -1);
+
+        assertEquals(4, metrics.getRequests());
+        assertEquals(2, metrics.getErrors());
+        assertEquals(120, metrics.getBytesWritten());
+        assertEquals(11_000, metrics.getLatencyNanos());
+        long[] counts = metrics.snapshot();
+        assertEquals(1, counts[RouteMetrics.bucketIndex(1)]);
+        assertEquals(1, counts[RouteMetrics.bucketIndex(2)]);
+        assertEquals(1, counts[RouteMetrics.bucketIndex(3)]);
+        assertEquals(1, counts[RouteMetrics.bucketIndex(4)]);
+    }
+
+    @Test
+    void quantilesReportTheUpperBoundOfTheRankBucket() throws Exception {
+        RouteMetrics metrics = new RouteMetrics("/r", "GET");
+        record(metrics, 90, 10);
+        record(metrics, 9, 1_000);
+        record(metrics, 1, 100_000);
+
+        String output = scrape(metrics);
+        assertEquals(upperBoundSeconds(10), quantile(output, "0.5"));
+        assertEquals(upperBoundSeconds(10), quantile(output, "0.9"));
+        assertEquals(upperBoundSeconds(1_000), quantile(output, "0.99"));
+        assertEquals(upperBoundSeconds(100_000), quantile(output, "0.999"));
+    }
+
+    @Test
+    void quantilesOnlyCoverTheIntervalSinceTheLastScrape() throws Exception {
+        RouteMetrics metrics = new RouteMetrics("/r", "GET");
+        record(metrics, 100, 100_000);
+        scrape(metrics);
+
+        assertFalse(scrape(metrics).contains(QUANTILE_METRIC + "{"));
+
+        record(metrics, 10, 10);
+        String output = scrape(metrics);
+        assertEquals(upperBoundSeconds(10), quantile(output, "0.999"));
+        // 累计直方图不受抓取间隔影响
+        assertTrue(output.contains("mini_spring_http_request_duration_seconds_count{route=\"/r\",method=\"GET\"} 110\n"));
+    }
+
+    @Test
+    void histogramIsCumulativeAtPowerOfTwoBoundaries() throws Exception {
+        RouteMetrics metrics = new RouteMetrics("/r", "GET");
+        record(metrics, 3, 10);
+        record(metrics, 2, 1_000);
+        record(metrics, 1, 1L << 30);
+
+        String output = scrape(metrics);
+        assertTrue(output.contains(bucketLine("0.000008", 0)));
+        assertTrue(output.contains(bucketLine("0.000016", 3)));
+        assertTrue(output.contains(bucketLine("0.000512", 3)));
+        assertTrue(output.contains(bucketLine("0.001024", 5)));
+        assertTrue(output.contains(bucketLine("67.108864", 5)));
+        assertTrue(output.contains(bucketLine("+Inf", 6)));
+    }
+
+    private static void assertInside(long micros) {
+        int index = RouteMetrics.bucketIndex(micros);
+        long lower = index == 0 ? 0 : RouteMetrics.bucketUpperBound(index - 1);
+        assertTrue(lower <= micros && micros < RouteMetrics.bucketUpperBound(index), micros + " in bucket " + index);
+    }
+
+    private static void record(RouteMetrics metrics, int times, long micros) {
+        for (int i = 0; i < times; i++) {
+            metrics.record(200, micros * 1000, 0);
+        }
+    }
+
+    private static String scrape(RouteMetrics metrics) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        long written = MetricsEndpoint.write(List.of(metrics), null, FakeRequests.response(body));
+        assertEquals(body.size(), written);
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static double quantile(String output, String quantile) {
+        String prefix = QUANTILE_METRIC + "{route=\"/r\",method=\"GET\",quantile=\"" + quantile + "\"} ";
+        for (String line : output.split("\n")) {
+            if (line.startsWith(prefix)) {
+                return Double.parseDouble(line.substring(prefix.length()));
+            }
+        }
+        throw new AssertionError("missing quantile " + quantile + " in\n" + output);
+    }
+
+    private static double upperBoundSeconds(long micros) {
+        return RouteMetrics.bucketUpperBound(RouteMetrics.bucketIndex(micros)) / 1e6;
+    }
+
+    private static String bucketLine(String le, long count) {
+        return "mini_spring_http_request_duration_seconds_bucket{route=\"/r\",method=\"GET\",le=\"" + le + "\"} " + count + "\n";
+    }
+}
@@ -0,0 +1,156 @@
+package mini.spring.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouterTest {
+
+    public static class Fixture {
+        public void handle() {
+        }
+    }
+
+    private final Router router = new Router();
+    private final Router.RouteMatch match = new Router.RouteMatch();
+
+    @Test
+    void staticBeatsVariableBeatsWildcardBeatsCatchAll() {
+        WebHandler exact = register("/files/readme");
+        WebHandler variable = register("/files/{name}");
+        WebHandler wildcard = register("/files/*/raw");
+        WebHandler catchAll = register("/files/**");
+
+        assertSame(exact, router.find("GET", "/files/readme", match));
+        assertSame(variable, router.find("GET", "/files/notes", match));
+        assertEquals("notes", match.getVariable("name"));
+        assertSame(wildcard, router.find("GET", "/files/notes/raw", match));
+        assertSame(catchAll, router.find("GET", "/files/notes/raw/extra", match));
+        assertEquals("notes/raw/extra", match.getVariable("**"));
+    }
+
+    @Test
+    void variableWinsOverWildcardInTheSamePosition() {
+        WebHandler variable = register("/users/{id}");
+        register("/users/*");
+
+        assertSame(variable, router.find("GET", "/users/42", match));
+        assertEquals("42", match.getVariable("id"));
+    }
+
+    @Test
+    void backtracksFromStaticToVariableBranch() {
+        WebHandler staticBranch = register("/users/me/profile");
+        WebHandler variableBranch = register("/users/{id}/orders");
+
+        assertSame(staticBranch, router.find("GET", "/users/me/profile", match));
+        // 静态段 me 匹配但后续失败，回到 {id}
+        assertSame(variableBranch, router.find("GET", "/users/me/orders", match));
+        assertEquals("me", match.getVariable("id"));
+    }
+
+    @Test
+    void backtrackingDropsCapturesOfFailedBranches() {
+        register("/a/{x}/{y}/z");
+        WebHandler handler = register("/a/*/b");
+
+        assertSame(handler, router.find("GET", "/a/1/b", match));
+        assertEquals("1", match.getVariable("*"));
+        assertNull(match.getVariable("x"));
+    }
+
+    @Test
+    void catchAllMatchesItsOwnPrefixAndFallsBackAfterDeeperFailures() {
+        WebHandler catchAll = register("/static/**");
+        register("/static/{dir}/index");
+
+        assertSame(catchAll, router.find("GET", "/static", match));
+        assertEquals("", match.getVariable("**"));
+        assertSame(catchAll, router.find("GET", "/static/css/site.css", match));
+        assertEquals("css/site.css", match.getVariable("**"));
+    }
+
+    @Test
+    void emptySegmentsDoNotBindVariables() {
+        register("/users/{id}");
+
+        assertNull(router.find("GET", "/users/", match));
+        assertFalse(match.isPathMatched());
+    }
+
+    @Test
+    void methodMismatchReportsPathMatch() {
+        register("/orders/{id}", "POST");
+        register("/health", "GET");
+
+        assertNull(router.find("GET", "/orders/1", match));
+        assertTrue(match.isPathMatched());
+        assertNull(router.find("DELETE", "/health", match));
+        assertTrue(match.isPathMatched());
+        assertNull(router.find("GET", "/missing", match));
+        assertFalse(match.isPathMatched());
+    }
+
+    @Test
+    void dynamicRouteServesMethodsTheStaticRouteLacks() {
+        WebHandler staticGet = register("/items/new", "GET");
+        WebHandler dynamicPost = register("/items/{id}", "POST");
+
+        assertSame(staticGet, router.find("GET", "/items/new", match));
+        assertSame(dynamicPost, router.find("POST", "/items/new", match));
+        assertEquals("new", match.getVariable("id"));
+    }
+
+    @Test
+    void patternsDifferingOnlyInVariableNamesKeepTheirOwnNames() {
+        WebHandler get = register("/users/{id}", "GET");
+        WebHandler put = register("/users/{userId}", "PUT");
+
+        assertSame(get, router.find("GET", "/users/7", match));
+        assertEquals("7", match.getVariable("id"));
+        assertSame(put, router.find("PUT", "/users/7", match));
+        assertEquals("7", match.getVariable("userId"));
+        assertNull(match.getVariable("id"));
+    }
+
+    @Test
+    void rejectsDuplicatesAndInnerCatchAll() {
+        register("/dup/{id}", "GET");
+
+        assertThrows(RuntimeException.class, () -> register("/dup/{other}", "GET"));
+        assertThrows(RuntimeException.class, () -> register("/bad/**/tail"));
+    }
+
+    @Test
+    void matchIsReusableAcrossRequests() {
+        register("/a/{x}/{y}/{z}/{w}/{v}/{u}/{t}/{s}/{r}");
+        WebHandler shallow = register("/b/{x}");
+
+        router.find("GET", "/a/1/2/3/4/5/6/7/8/9", match);
+        assertEquals("9", match.getVariable("r"));
+        assertSame(shallow, router.find("GET", "/b/1", match));
+        assertEquals("1", match.getVariable("x"));
+        assertNull(match.getVariable("r"));
+    }
+
+    private WebHandler register(String pattern, String... methods) {
+        WebHandler handler = handler();
+        router.register(pattern, methods, handler);
+        return handler;
+    }
+
+    private static WebHandler handler() {
+        try {
+            return new WebHandler(new Fixture(), Fixture.class.getMethod("handle"), List.of());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}